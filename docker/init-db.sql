@@ -5,15 +5,37 @@ CREATE TABLE `recipes` (
   `modified_time` datetime(6) DEFAULT NULL,
   `num_of_servings` smallint DEFAULT NULL,
   `recipe_name` varchar(255) DEFAULT NULL,
+  `version` bigint NOT NULL DEFAULT 0,
   PRIMARY KEY (`id`),
-  UNIQUE KEY `UK_ki12bp7g638chyap3hdmxe93f` (`recipe_name`)
+  UNIQUE KEY `UK_ki12bp7g638chyap3hdmxe93f` (`recipe_name`),
+  KEY `IDX_recipes_modified_time_id` (`modified_time`,`id`),
+  FULLTEXT KEY `FT_recipes_instructions` (`instructions`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+CREATE TABLE `ingredient_names` (
+  `id` int NOT NULL,
+  `name` varchar(100) NOT NULL,
+  `normalized_name` varchar(100) NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `UK_ingredient_names_normalized_name` (`normalized_name`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 
 CREATE TABLE `ingredients` (
   `id` bigint NOT NULL AUTO_INCREMENT,
-  `ingredient_name` varchar(255) DEFAULT NULL,
+  `ingredient_name_id` int NOT NULL,
   `recipe_id` bigint DEFAULT NULL,
+  `version` bigint NOT NULL DEFAULT 0,
   PRIMARY KEY (`id`),
-  UNIQUE KEY `UKs1ky3yjrtq501mghupnbpr4l9` (`recipe_id`,`ingredient_name`),
-  CONSTRAINT `FK7p08vcn6wf7fd6qp79yy2jrwg` FOREIGN KEY (`recipe_id`) REFERENCES `recipes` (`id`)
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
\ No newline at end of file
+  UNIQUE KEY `UK_ingredients_recipe_id_ingredient_name_id` (`recipe_id`,`ingredient_name_id`),
+  KEY `IDX_ingredients_ingredient_name_id` (`ingredient_name_id`),
+  CONSTRAINT `FK7p08vcn6wf7fd6qp79yy2jrwg` FOREIGN KEY (`recipe_id`) REFERENCES `recipes` (`id`),
+  CONSTRAINT `FK_ingredients_ingredient_name_id` FOREIGN KEY (`ingredient_name_id`) REFERENCES `ingredient_names` (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+CREATE TABLE `id_generator` (
+  `sequence_name` varchar(255) NOT NULL,
+  `next_val` bigint DEFAULT NULL,
+  PRIMARY KEY (`sequence_name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+INSERT INTO `id_generator` (`sequence_name`, `next_val`) VALUES ('recipes', 0), ('ingredients', 0), ('ingredient_names', 0);
\ No newline at end of file
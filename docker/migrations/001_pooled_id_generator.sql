@@ -0,0 +1,14 @@
+-- Moves an existing database from AUTO_INCREMENT ids to the pooled id_generator table.
+-- next_val holds the last id handed out. Fresh databases get the table from init-db.sql.
+-- Run once, with the application stopped.
+CREATE TABLE `id_generator` (
+  `sequence_name` varchar(255) NOT NULL,
+  `next_val` bigint DEFAULT NULL,
+  PRIMARY KEY (`sequence_name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+INSERT INTO `id_generator` (`sequence_name`, `next_val`)
+SELECT 'recipes', COALESCE(MAX(`id`), 0) FROM `recipes`;
+
+INSERT INTO `id_generator` (`sequence_name`, `next_val`)
+SELECT 'ingredients', COALESCE(MAX(`id`), 0) FROM `ingredients`;
@@ -0,0 +1,5 @@
+-- Adds the optimistic-lock version columns used by conditional PATCH (If-Match).
+-- Existing rows start at version 0.
+ALTER TABLE `recipes` ADD COLUMN `version` bigint NOT NULL DEFAULT 0;
+
+ALTER TABLE `ingredients` ADD COLUMN `version` bigint NOT NULL DEFAULT 0;
@@ -0,0 +1,45 @@
+-- Moves ingredient names into the ingredient_names dictionary, ingredients keep an integer id of it.
+-- normalized_name collapses whitespace like IngredientName.normalize; names equal after that under
+-- utf8mb4_0900_ai_ci, i.e. differing only in case, accents or spacing, become one entry and
+-- duplicates this creates within a recipe are removed. Stop the application while it runs.
+CREATE TABLE `ingredient_names` (
+  `id` int NOT NULL,
+  `name` varchar(100) NOT NULL,
+  `normalized_name` varchar(100) NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `UK_ingredient_names_normalized_name` (`normalized_name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+INSERT INTO `ingredient_names` (`id`, `name`, `normalized_name`)
+SELECT ROW_NUMBER() OVER (ORDER BY MIN(`id`)), MIN(TRIM(`ingredient_name`)),
+       LOWER(TRIM(REGEXP_REPLACE(`ingredient_name`, '[[:space:]]+', ' ')))
+FROM `ingredients`
+WHERE `ingredient_name` IS NOT NULL
+GROUP BY LOWER(TRIM(REGEXP_REPLACE(`ingredient_name`, '[[:space:]]+', ' ')));
+
+-- next_val holds the last id handed out, as in 001
+INSERT INTO `id_generator` (`sequence_name`, `next_val`)
+SELECT 'ingredient_names', COALESCE(MAX(`id`), 0) FROM `ingredient_names`;
+
+ALTER TABLE `ingredients` ADD COLUMN `ingredient_name_id` int DEFAULT NULL;
+
+UPDATE `ingredients` i
+JOIN `ingredient_names` n ON n.`normalized_name` = LOWER(TRIM(REGEXP_REPLACE(i.`ingredient_name`, '[[:space:]]+', ' ')))
+SET i.`ingredient_name_id` = n.`id`;
+
+DELETE FROM `ingredients` WHERE `ingredient_name_id` IS NULL;
+
+DELETE duplicate FROM `ingredients` duplicate
+JOIN `ingredients` kept ON kept.`recipe_id` = duplicate.`recipe_id`
+    AND kept.`ingredient_name_id` = duplicate.`ingredient_name_id`
+    AND kept.`id` < duplicate.`id`;
+
+ALTER TABLE `ingredients`
+  MODIFY `ingredient_name_id` int NOT NULL,
+  ADD UNIQUE KEY `UK_ingredients_recipe_id_ingredient_name_id` (`recipe_id`, `ingredient_name_id`),
+  ADD KEY `IDX_ingredients_ingredient_name_id` (`ingredient_name_id`),
+  ADD CONSTRAINT `FK_ingredients_ingredient_name_id` FOREIGN KEY (`ingredient_name_id`) REFERENCES `ingredient_names` (`id`);
+
+ALTER TABLE `ingredients`
+  DROP INDEX `UKs1ky3yjrtq501mghupnbpr4l9`,
+  DROP COLUMN `ingredient_name`;
@@ -0,0 +1,8 @@
+-- Adds the indexes of the search: (modified_time, id) for the keyset pagination of GET /recipes?limit=
+-- and the FULLTEXT index on instructions for instructionsMatch=term|phrase, without which MATCH fails.
+-- Fresh databases get both from init-db.sql. Building the FULLTEXT index rebuilds the table.
+ALTER TABLE `recipes`
+  ADD KEY `IDX_recipes_modified_time_id` (`modified_time`,`id`);
+
+ALTER TABLE `recipes`
+  ADD FULLTEXT KEY `FT_recipes_instructions` (`instructions`);
@@ -0,0 +1,85 @@
+package github.ikhvjs.recipes.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Prints the change of every benchmark between two JMH JSON results, e.g.
+ * {@code java -cp ... BenchmarkComparison baseline.json target/jmh-result.json}.
+ * A change is only flagged when the score intervals of both runs do not overlap.
+ */
+public final class BenchmarkComparison {
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: BenchmarkComparison <baseline.json> <candidate.json>");
+            System.exit(2);
+        }
+        Map<String, JsonNode> baseline = read(new File(args[0]));
+        Map<String, JsonNode> candidate = read(new File(args[1]));
+
+        System.out.printf("%-75s %14s %14s %9s%n", "Benchmark", "Baseline", "Candidate", "Change");
+        candidate.forEach((name, result) -> {
+            JsonNode before = baseline.get(name);
+            if (before == null) {
+                System.out.printf("%-75s %14s %14.3f %9s%n", name, "-", score(result), "new");
+                return;
+            }
+            double change = (score(result) - score(before)) / score(before) * 100;
+            boolean significant = score(result) - error(result) > score(before) + error(before)
+                    || score(result) + error(result) < score(before) - error(before);
+            System.out.printf("%-75s %14.3f %14.3f %+8.1f%%%s%n", name, score(before), score(result), change,
+                    significant ? " *" : "");
+        });
+        System.out.println("Scores in " + unit(candidate) + ", * marks changes beyond the score error of both runs");
+    }
+
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            results.put(name(result), result);
+        }
+        return results;
+    }
+
+    // benchmark method plus its parameters, e.g. RecipeJsonBenchmark.serialize:ingredients=10
+    private static String name(JsonNode result) {
+        String benchmark = result.get("benchmark").asText();
+        StringBuilder name = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+        JsonNode params = result.get("params");
+        if (params != null) {
+            Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                name.append(':').append(field.getKey()).append('=').append(field.getValue().asText());
+            }
+        }
+        return name.toString();
+    }
+
+    private static double score(JsonNode result) {
+        return result.get("primaryMetric").get("score").asDouble();
+    }
+
+    private static double error(JsonNode result) {
+        double error = result.get("primaryMetric").get("scoreError").asDouble();
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    private static String unit(Map<String, JsonNode> results) {
+        return results.values().stream()
+                .map(result -> result.get("primaryMetric").get("scoreUnit").asText())
+                .distinct()
+                .reduce((first, second) -> first + ", " + second)
+                .orElse("-");
+    }
+}
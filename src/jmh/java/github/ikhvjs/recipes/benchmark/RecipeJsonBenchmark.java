@@ -0,0 +1,62 @@
+package github.ikhvjs.recipes.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import github.ikhvjs.recipes.model.Ingredient;
+import github.ikhvjs.recipes.model.Recipe;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization and deserialization of a recipe with N ingredients, with the
+ * ObjectMapper defaults Spring Boot uses for the controllers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecipeJsonBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int ingredients;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private Recipe recipe;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writerFor(Recipe.class);
+        reader = objectMapper.readerFor(Recipe.class);
+
+        List<Ingredient> recipeIngredients = new ArrayList<>();
+        for (long id = 1; id <= ingredients; id++) {
+            recipeIngredients.add(new Ingredient(id, "ingredient " + id));
+        }
+        recipe = new Recipe(1L, "benchmark recipe", true, (short) 4,
+                "Mix everything and bake it in the oven for 40 minutes.", recipeIngredients,
+                LocalDateTime.parse("2022-08-04T10:11:30"));
+        json = writer.writeValueAsBytes(recipe);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return writer.writeValueAsBytes(recipe);
+    }
+
+    @Benchmark
+    public Recipe deserialize() throws IOException {
+        return reader.readValue(json);
+    }
+}
@@ -0,0 +1,95 @@
+package github.ikhvjs.recipes.benchmark;
+
+import github.ikhvjs.recipes.controller.QueryString;
+import github.ikhvjs.recipes.index.IngredientIndex;
+import github.ikhvjs.recipes.index.IngredientSuggestIndex;
+import github.ikhvjs.recipes.index.PantryIndex;
+import github.ikhvjs.recipes.index.RecipeIngredientIds;
+import github.ikhvjs.recipes.index.RecipeIngredientIndexes;
+import github.ikhvjs.recipes.index.RecipeNameRegistry;
+import github.ikhvjs.recipes.index.SimilarityIndex;
+import github.ikhvjs.recipes.model.Recipe;
+import github.ikhvjs.recipes.repository.IngredientNameRepository;
+import github.ikhvjs.recipes.repository.IngredientRepository;
+import github.ikhvjs.recipes.repository.RecipeRepository;
+import github.ikhvjs.recipes.service.IngredientNameServiceImpl;
+import github.ikhvjs.recipes.service.RecipeServiceImpl;
+import github.ikhvjs.recipes.slowquery.SlowQueryLog;
+import github.ikhvjs.recipes.specification.RecipeSpecification;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the search specifications without a database: RecipeServiceImpl.search against a
+ * repository that returns no rows, and the RecipeSpecification factories it composes.
+ * Specifications only turn into criteria predicates inside Hibernate, which this leaves out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecipeSpecificationBenchmark {
+
+    private RecipeServiceImpl recipeService;
+    private QueryString allFilters;
+    private QueryString termsFilter;
+
+    @Setup
+    public void setUp() {
+        RecipeRepository recipeRepository = emptyRepository(RecipeRepository.class);
+        IngredientRepository ingredientRepository = emptyRepository(IngredientRepository.class);
+        RecipeIngredientIds recipeIngredientIds = new RecipeIngredientIds();
+        IngredientIndex ingredientIndex = new IngredientIndex(ingredientRepository, false, 1000);
+        PantryIndex pantryIndex = new PantryIndex(recipeIngredientIds, false);
+        SimilarityIndex similarityIndex = new SimilarityIndex(recipeIngredientIds, false, 1000);
+        recipeService = new RecipeServiceImpl(recipeRepository, ingredientRepository, ingredientIndex,
+                new RecipeNameRegistry(recipeRepository, false), new SimpleMeterRegistry(),
+                new SlowQueryLog(null, false, Duration.ZERO, 0),
+                new IngredientNameServiceImpl(emptyRepository(IngredientNameRepository.class), null),
+                pantryIndex, similarityIndex,
+                new RecipeIngredientIndexes(ingredientRepository, recipeIngredientIds, ingredientIndex, pantryIndex,
+                        similarityIndex, new IngredientSuggestIndex(recipeIngredientIds, false)));
+
+        allFilters = new QueryString("true", "4", List.of("potato", "onion", "garlic"), null, "oven");
+        termsFilter = new QueryString(null, null, null, List.of("meat"), "bake in the hot oven, then serve");
+        termsFilter.setInstructionsMatch("term");
+    }
+
+    @Benchmark
+    public List<Recipe> searchAllFilters() {
+        return recipeService.search(allFilters);
+    }
+
+    @Benchmark
+    public List<Recipe> searchInstructionsTerms() {
+        return recipeService.search(termsFilter);
+    }
+
+    @Benchmark
+    public Specification<Recipe> composeSpecifications() {
+        return Specification.where(RecipeSpecification.isVegetarian())
+                .and(RecipeSpecification.numOfServings((short) 4))
+                .and(RecipeSpecification.introductionsContains("oven"))
+                .and(RecipeSpecification.includeIngredients(List.of(1, 2, 3)));
+    }
+
+    @Benchmark
+    public String toTermsQuery() {
+        return RecipeSpecification.toTermsQuery("bake in the hot oven, then serve");
+    }
+
+    // answers every repository call with an empty list, the benchmarks never read rows
+    @SuppressWarnings("unchecked")
+    private static <T> T emptyRepository(Class<T> repositoryType) {
+        return (T) Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[]{repositoryType},
+                (proxy, method, args) -> method.getReturnType() == List.class ? List.of() : null);
+    }
+}
@@ -0,0 +1,89 @@
+package github.ikhvjs.recipes.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import github.ikhvjs.recipes.controller.QueryString;
+import github.ikhvjs.recipes.exception.ControllerExceptionHandler;
+import github.ikhvjs.recipes.exception.ErrorMessage;
+import github.ikhvjs.recipes.exception.InvalidSearchParamsException;
+import github.ikhvjs.recipes.exception.ResourceNotFoundException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindException;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QueryString validation as GET /recipes binds it, and the ControllerExceptionHandler error
+ * paths up to the serialized response body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestValidationBenchmark {
+
+    private LocalValidatorFactoryBean validator;
+    private ControllerExceptionHandler exceptionHandler;
+    private ObjectMapper objectMapper;
+    private WebRequest request;
+    private QueryString validQueryString;
+    private QueryString invalidQueryString;
+
+    @Setup
+    public void setUp() {
+        validator = new LocalValidatorFactoryBean();
+        validator.afterPropertiesSet();
+        exceptionHandler = new ControllerExceptionHandler();
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        request = new ServletWebRequest(new MockHttpServletRequest("GET", "/recipes"));
+
+        validQueryString = new QueryString("true", "4", List.of("potato", "onion"), null, "oven");
+        invalidQueryString = new QueryString("yes", "101", List.of(""), null, "");
+    }
+
+    @TearDown
+    public void tearDown() {
+        validator.close();
+    }
+
+    @Benchmark
+    public BeanPropertyBindingResult validateValidQueryString() {
+        return validate(validQueryString);
+    }
+
+    @Benchmark
+    public byte[] invalidQueryStringToBadRequest() throws IOException {
+        BindException bindException = new BindException(validate(invalidQueryString));
+        return objectMapper.writeValueAsBytes(exceptionHandler.bindExceptionHandler(bindException, request));
+    }
+
+    @Benchmark
+    public byte[] invalidSearchParamsToBadRequest() throws IOException {
+        ErrorMessage errorMessage = exceptionHandler.invalidSearchParamsExceptionHandler(
+                new InvalidSearchParamsException(List.of("Query String must choose either includeIngredients or excludeIngredients")),
+                request);
+        return objectMapper.writeValueAsBytes(errorMessage);
+    }
+
+    @Benchmark
+    public byte[] resourceNotFoundToNotFound() throws IOException {
+        ErrorMessage errorMessage = exceptionHandler.resourceNotFoundException(
+                new ResourceNotFoundException("Not found Recipe with id = 1"), request);
+        return objectMapper.writeValueAsBytes(errorMessage);
+    }
+
+    private BeanPropertyBindingResult validate(QueryString queryString) {
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(queryString, "queryString");
+        validator.validate(queryString, bindingResult);
+        return bindingResult;
+    }
+}
@@ -0,0 +1,55 @@
+package github.ikhvjs.recipes.loadtest;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.NoOpQueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Delays every statement by loadtest.db-latency milliseconds before it reaches the in-memory
+ * database, so requests spend their time waiting on JDBC like they do against a remote MySQL.
+ * Only registered by LoadTest, it is not a component.
+ */
+public class DatabaseLatency {
+
+    @Bean
+    public static BeanPostProcessor databaseLatencyPostProcessor(Environment environment) {
+        long latencyMillis = environment.getProperty("loadtest.db-latency", Long.class, 0L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && latencyMillis > 0) {
+                    return ProxyDataSourceBuilder.create((DataSource) bean)
+                            .name(beanName + "-latency")
+                            .listener(new Delay(latencyMillis))
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static class Delay extends NoOpQueryExecutionListener {
+        private final long latencyMillis;
+
+        private Delay(long latencyMillis) {
+            this.latencyMillis = latencyMillis;
+        }
+
+        // blocks a platform thread, a virtual thread unmounts from its carrier meanwhile
+        @Override
+        public void beforeQuery(ExecutionInfo executionInfo, List<QueryInfo> queryInfos) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package github.ikhvjs.recipes.loadtest;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Generates recipes and ingredients for the tables of docker/init-db.sql as multi-row
+ * INSERT statements that run on MySQL and on H2 in MySQL mode. The same seed and scale
+ * always produce the same rows.
+ * <p>
+ * Ingredient popularity is Zipf-like, so a few ingredients appear in most recipes and the
+ * long tail in very few, which is what makes includeIngredients filters more or less selective.
+ * <pre>
+ * java ... DatasetGenerator --scale=100k --out=target/loadtest/recipes-100k.sql [--seed=42]
+ * </pre>
+ */
+public class DatasetGenerator {
+    static final int ROWS_PER_INSERT = 500;
+
+    static final List<String> INGREDIENTS = ingredientNames();
+
+    static final List<String> INSTRUCTION_WORDS = List.of(
+            "oven", "pan", "pot", "bowl", "heat", "boil", "simmer", "bake", "roast", "fry", "stir", "whisk",
+            "chop", "slice", "dice", "mince", "season", "serve", "rest", "cool", "mix", "fold", "knead", "grill",
+            "minutes", "gently", "until", "golden", "tender", "smooth", "crispy", "covered", "medium", "high", "low");
+
+    private static final List<String> DISHES = List.of(
+            "soup", "stew", "curry", "salad", "pie", "risotto", "pasta", "bake", "roast", "stir fry", "tart",
+            "casserole", "burger", "wrap", "omelette", "noodles", "dumplings", "pancakes", "bread", "chili");
+
+    private static final List<String> STYLES = List.of(
+            "classic", "spicy", "creamy", "rustic", "quick", "smoky", "crispy", "lemony", "hearty", "herby",
+            "sweet", "sour", "garlicky", "golden", "fresh", "slow-cooked", "one-pot", "baked", "grilled", "tangy");
+
+    private static final List<String> MEAT = List.of(
+            "chicken", "beef", "pork", "lamb", "bacon", "salmon", "tuna", "shrimp", "cod", "turkey", "sausage");
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS");
+
+    private final int recipes;
+    private final Random random;
+    private final double[] cumulativePopularity;
+    private final LocalDateTime now = LocalDateTime.parse("2022-08-04T10:11:30");
+
+    public DatasetGenerator(int recipes, long seed) {
+        this.recipes = recipes;
+        this.random = new Random(seed);
+        this.cumulativePopularity = zipf(INGREDIENTS.size(), 1.1);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = LoadTest.options(args);
+        int scale = parseScale(options.getOrDefault("scale", "10k"));
+        Path out = Paths.get(options.getOrDefault("out", "target/loadtest/recipes-" + options.getOrDefault("scale", "10k") + ".sql"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        Files.createDirectories(out.toAbsolutePath().getParent());
+        try (BufferedWriter writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            new DatasetGenerator(scale, seed).generate(statement -> {
+                try {
+                    writer.write(statement);
+                    writer.write(";\n");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        System.out.println("Wrote " + scale + " recipes to " + out);
+    }
+
+    // 10k, 100k, 1m or a plain number of recipes
+    static int parseScale(String scale) {
+        String value = scale.toLowerCase(Locale.ROOT);
+        if (value.endsWith("m")) {
+            return Integer.parseInt(value.substring(0, value.length() - 1)) * 1_000_000;
+        }
+        if (value.endsWith("k")) {
+            return Integer.parseInt(value.substring(0, value.length() - 1)) * 1_000;
+        }
+        return Integer.parseInt(value);
+    }
+
+    /**
+     * Passes the statements, without a trailing semicolon, to the consumer: the ingredient name
+     * dictionary, the recipes and their ingredients in chunks, then the id_generator rows so new
+     * ids start after them.
+     * Returns the number of ingredients.
+     */
+    public long generate(Consumer<String> statements) {
+        StringBuilder recipeRows = new StringBuilder();
+        StringBuilder ingredientRows = new StringBuilder();
+        int recipeRowCount = 0;
+        int ingredientRowCount = 0;
+        long ingredientId = 0;
+
+        // every name is already normalized, the dictionary id is its position plus one
+        List<String> dictionary = new ArrayList<>(INGREDIENTS);
+        dictionary.addAll(MEAT);
+        Map<String, Integer> dictionaryIds = new HashMap<>();
+        StringBuilder nameRows = new StringBuilder();
+        for (String name : dictionary) {
+            dictionaryIds.put(name, dictionaryIds.size() + 1);
+            appendRow(nameRows, dictionaryIds.size() == 1, dictionaryIds.size(), quote(name), quote(name));
+        }
+        statements.accept("INSERT INTO ingredient_names (id, name, normalized_name) VALUES " + nameRows);
+
+        for (long recipeId = 1; recipeId <= recipes; recipeId++) {
+            boolean vegetarian = random.nextDouble() < 0.4;
+            appendRow(recipeRows, recipeRowCount++ == 0,
+                    recipeId, quote(recipeName(recipeId)), vegetarian ? "TRUE" : "FALSE", servings(),
+                    quote(instructions()), quote(TIMESTAMP.format(modifiedTime())), 0);
+
+            for (String ingredientName : ingredients(vegetarian)) {
+                appendRow(ingredientRows, ingredientRowCount++ == 0,
+                        ++ingredientId, dictionaryIds.get(ingredientName), recipeId, 0);
+            }
+
+            if (recipeRowCount == ROWS_PER_INSERT || recipeId == recipes) {
+                statements.accept("INSERT INTO recipes (id, recipe_name, is_vegetarian, num_of_servings, instructions, modified_time, version) VALUES "
+                        + recipeRows);
+                recipeRows.setLength(0);
+                recipeRowCount = 0;
+            }
+            // recipes first, the ingredients reference them
+            if (recipeRowCount == 0 && ingredientRowCount > 0) {
+                statements.accept("INSERT INTO ingredients (id, ingredient_name_id, recipe_id, version) VALUES " + ingredientRows);
+                ingredientRows.setLength(0);
+                ingredientRowCount = 0;
+            }
+        }
+
+        // next_val holds the last id handed out, see docker/migrations/001_pooled_id_generator.sql
+        statements.accept("DELETE FROM id_generator");
+        statements.accept("INSERT INTO id_generator (sequence_name, next_val) VALUES ('recipes', " + recipes
+                + "), ('ingredients', " + ingredientId + "), ('ingredient_names', " + dictionary.size() + ")");
+        return ingredientId;
+    }
+
+    private String recipeName(long id) {
+        return pick(STYLES) + " " + pick(DISHES) + " " + id;
+    }
+
+    // mostly 2 to 6 servings, rarely up to 12
+    private int servings() {
+        int servings = 2 + (int) Math.round(Math.abs(random.nextGaussian()) * 2.5);
+        return Math.min(servings, 12);
+    }
+
+    private String instructions() {
+        StringBuilder instructions = new StringBuilder();
+        int sentences = 2 + random.nextInt(8);
+        for (int sentence = 0; sentence < sentences; sentence++) {
+            int words = 6 + random.nextInt(12);
+            for (int word = 0; word < words; word++) {
+                instructions.append(word == 0 ? capitalize(pick(INSTRUCTION_WORDS)) : pick(INSTRUCTION_WORDS))
+                        .append(word == words - 1 ? ". " : " ");
+            }
+        }
+        return instructions.toString().trim();
+    }
+
+    private LocalDateTime modifiedTime() {
+        return now.minusSeconds(random.nextInt(2 * 365 * 24 * 3600)).withNano(random.nextInt(1_000_000) * 1000);
+    }
+
+    // 3 to 15 distinct ingredients, vegetarian recipes never get meat
+    private Set<String> ingredients(boolean vegetarian) {
+        int count = 3 + random.nextInt(13);
+        Set<String> names = new LinkedHashSet<>();
+        if (!vegetarian) {
+            names.add(pick(MEAT));
+        }
+        while (names.size() < count) {
+            names.add(INGREDIENTS.get(popularIndex()));
+        }
+        return names;
+    }
+
+    private int popularIndex() {
+        int index = Arrays.binarySearch(cumulativePopularity, random.nextDouble());
+        return index >= 0 ? index : Math.min(-index - 1, cumulativePopularity.length - 1);
+    }
+
+    private String pick(List<String> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static double[] zipf(int size, double exponent) {
+        double[] cumulative = new double[size];
+        double total = 0;
+        for (int rank = 1; rank <= size; rank++) {
+            total += 1 / Math.pow(rank, exponent);
+            cumulative[rank - 1] = total;
+        }
+        for (int index = 0; index < size; index++) {
+            cumulative[index] /= total;
+        }
+        return cumulative;
+    }
+
+    // vegetable, dairy, grain and spice names combined with a few modifiers, about 500 in total
+    private static List<String> ingredientNames() {
+        List<String> bases = List.of(
+                "onion", "garlic", "potato", "tomato", "carrot", "celery", "pepper", "spinach", "mushroom", "leek",
+                "zucchini", "eggplant", "cabbage", "broccoli", "cauliflower", "pea", "bean", "lentil", "chickpea", "corn",
+                "rice", "pasta", "flour", "oat", "quinoa", "butter", "milk", "cream", "cheese", "yogurt",
+                "egg", "lemon", "lime", "orange", "apple", "ginger", "chili", "basil", "parsley", "thyme",
+                "rosemary", "oregano", "cumin", "paprika", "cinnamon", "sugar", "honey", "salt", "olive oil", "vinegar");
+        List<String> modifiers = List.of("", "red ", "green ", "dried ", "fresh ", "smoked ", "ground ", "roasted ",
+                "pickled ", "wild ");
+        List<String> names = new ArrayList<>();
+        for (String modifier : modifiers) {
+            for (String base : bases) {
+                names.add(modifier + base);
+            }
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    private static void appendRow(StringBuilder rows, boolean first, Object... values) {
+        if (!first) {
+            rows.append(", ");
+        }
+        rows.append('(');
+        for (int index = 0; index < values.length; index++) {
+            rows.append(index == 0 ? "" : ", ").append(values[index]);
+        }
+        rows.append(')');
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
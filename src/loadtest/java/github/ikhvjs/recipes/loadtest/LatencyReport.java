@@ -0,0 +1,86 @@
+package github.ikhvjs.recipes.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Latencies and unexpected responses per operation, with throughput and percentiles over
+ * the measured run.
+ */
+public class LatencyReport {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<String, Samples> samplesByOperation = new ConcurrentSkipListMap<>();
+    private volatile long elapsedNanos;
+
+    public void record(String operation, long latencyNanos, boolean expected) {
+        samplesByOperation.computeIfAbsent(operation, key -> new Samples()).add(latencyNanos, expected);
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String format() {
+        double seconds = elapsedNanos / 1e9;
+        StringBuilder report = new StringBuilder(String.format("%-40s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "Operation", "Requests", "Errors", "Req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        Samples total = new Samples();
+
+        samplesByOperation.forEach((operation, samples) -> {
+            report.append(row(operation, samples, seconds));
+            total.addAll(samples);
+        });
+        report.append(row("total", total, seconds));
+        return report.toString();
+    }
+
+    private static String row(String operation, Samples samples, double seconds) {
+        long[] latencies = samples.sorted();
+        StringBuilder row = new StringBuilder(String.format("%-40s %9d %7d %9.1f", operation, latencies.length,
+                samples.errors, latencies.length / seconds));
+        for (double percentile : PERCENTILES) {
+            row.append(String.format(" %9.2f", percentile(latencies, percentile) / 1e6));
+        }
+        return row.append(String.format(" %9.2f%n", latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6)).toString();
+    }
+
+    // nearest-rank percentile
+    static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private static final class Samples {
+        private long[] latencies = new long[1024];
+        private int size;
+        private long errors;
+
+        synchronized void add(long latencyNanos, boolean expected) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = latencyNanos;
+            if (!expected) {
+                errors++;
+            }
+        }
+
+        synchronized void addAll(Samples samples) {
+            for (long latency : samples.sorted()) {
+                add(latency, true);
+            }
+            errors += samples.errors;
+        }
+
+        synchronized long[] sorted() {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package github.ikhvjs.recipes.loadtest;
+
+import github.ikhvjs.recipes.RecipesApplication;
+import github.ikhvjs.recipes.index.IngredientIndex;
+import github.ikhvjs.recipes.index.RecipeIngredientIndexes;
+import github.ikhvjs.recipes.index.RecipeNameRegistry;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load test entry point. By default it starts the application in this JVM against an
+ * in-memory H2 database in MySQL mode, loads a generated dataset into it and runs the
+ * workload. With --target it drives an already running instance instead, whose database
+ * was loaded from a DatasetGenerator script.
+ * <pre>
+ * --scale=10k           recipes to generate (10k, 100k, 1m or a number)
+ * --duration=60         seconds measured, after --warmup=15 seconds
+ * --concurrency=32      workers sending requests back to back
+ * --jdbc-url=...        stand-in database, e.g. a file-based H2 for the 1m scale
+ * --threads=platform    Tomcat's thread pool, virtual for the virtual-threads profile, or both one after the other
+ * --db-latency=0        milliseconds added to every statement of the stand-in database
+ * --target=http://localhost:8080/api/v1 --max-recipe-id=100000 [--fulltext]
+ * </pre>
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "15")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60")));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "32"));
+
+        if (options.containsKey("target")) {
+            WorkloadDriver driver = new WorkloadDriver(options.get("target"),
+                    Integer.parseInt(options.get("max-recipe-id")), concurrency, options.containsKey("fulltext"));
+            print(driver.run(warmup, duration), options, "target");
+            // the HTTP client threads would keep the JVM running
+            System.exit(0);
+        }
+
+        int scale = DatasetGenerator.parseScale(options.getOrDefault("scale", "10k"));
+        List<String> threads = threads(options.getOrDefault("threads", "platform"));
+        if (threads.contains("virtual")) {
+            // read once by Log4j before the first logger exists, so with both modes the platform run logs the same way;
+            // VirtualThreadConfig refuses to start otherwise
+            System.setProperty("log4j2.enable.threadlocals", "false");
+        }
+        for (String thread : threads) {
+            try (ConfigurableApplicationContext context = startEmbedded(options.getOrDefault("jdbc-url",
+                    "jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"),
+                    thread.equals("virtual"), options.getOrDefault("db-latency", "0"))) {
+                load(context, scale, Long.parseLong(options.getOrDefault("seed", "42")));
+
+                String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/v1";
+                // H2 has no MATCH ... AGAINST, so instructionsMatch is only part of the mix against MySQL
+                WorkloadDriver driver = new WorkloadDriver(baseUrl, scale, concurrency, false);
+                print(driver.run(warmup, duration), options, thread + " threads");
+            }
+        }
+        System.exit(0);
+    }
+
+    // both runs load the same generated dataset into a fresh schema
+    private static List<String> threads(String threads) {
+        switch (threads) {
+            case "platform":
+            case "virtual":
+                return List.of(threads);
+            case "both":
+                return List.of("platform", "virtual");
+            default:
+                throw new IllegalArgumentException("Expected --threads=platform, virtual or both, got " + threads);
+        }
+    }
+
+    private static ConfigurableApplicationContext startEmbedded(String jdbcUrl, boolean virtualThreads, String dbLatency) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--management.server.port=0",
+                "--spring.datasource.url=" + jdbcUrl,
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--recipes.export.fetch-size=100",
+                // off by default for multi-instance deployments, on here so memory and latency include them
+                "--recipes.pantry-index.enabled=true",
+                "--recipes.similarity-index.enabled=true",
+                "--recipes.suggest-index.enabled=true",
+                "--loadtest.db-latency=" + dbLatency,
+                // a log line per request would measure the console
+                "--logging.level.github.ikhvjs=WARN"));
+        if (virtualThreads) {
+            args.add("--spring.profiles.active=virtual-threads");
+        }
+        return new SpringApplication(RecipesApplication.class, DatabaseLatency.class).run(args.toArray(String[]::new));
+    }
+
+    private static void load(ConfigurableApplicationContext context, int scale, long seed) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        long started = System.nanoTime();
+        long ingredients = new DatasetGenerator(scale, seed).generate(jdbcTemplate::execute);
+        System.out.printf("Loaded %d recipes and %d ingredients in %.1f s%n", scale, ingredients,
+                (System.nanoTime() - started) / 1e9);
+
+        // all were built from the empty schema at startup
+        context.getBean(IngredientIndex.class).rebuild();
+        context.getBean(RecipeNameRegistry.class).rebuild();
+        context.getBean(RecipeIngredientIndexes.class).rebuild();
+    }
+
+    private static void print(LatencyReport report, Map<String, String> options, String mode) {
+        System.out.println();
+        System.out.println("Load test " + options + " on " + mode);
+        System.out.print(report.format());
+    }
+
+    static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(separator < 0 ? arg.substring(2) : arg.substring(2, separator),
+                    separator < 0 ? "true" : arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
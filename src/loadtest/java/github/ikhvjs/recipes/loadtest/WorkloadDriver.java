@@ -0,0 +1,225 @@
+package github.ikhvjs.recipes.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Closed-model workload against a running API: every worker sends its next request as soon
+ * as the previous one is answered. The mix reads recipes by id, searches with each
+ * QueryString filter in turn, creates, PATCHes and deletes. Deletes only remove recipes
+ * the driver created itself, so the generated dataset keeps its size.
+ */
+public class WorkloadDriver {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String baseUrl;
+    private final int maxRecipeId;
+    private final int concurrency;
+    private final boolean fullText;
+    private final HttpClient httpClient;
+    private final Queue<Long> createdIds = new ConcurrentLinkedQueue<>();
+    private final AtomicLong nameSequence = new AtomicLong();
+
+    public WorkloadDriver(String baseUrl, int maxRecipeId, int concurrency, boolean fullText) {
+        this.baseUrl = baseUrl;
+        this.maxRecipeId = maxRecipeId;
+        this.concurrency = concurrency;
+        this.fullText = fullText;
+        this.httpClient = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(concurrency))
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * Runs the mix for the warmup, discards what it measured, then runs it for the duration
+     * and returns the latencies recorded per operation.
+     */
+    public LatencyReport run(Duration warmup, Duration duration) throws InterruptedException {
+        if (!warmup.isZero()) {
+            runFor(warmup);
+        }
+        return runFor(duration);
+    }
+
+    private LatencyReport runFor(Duration duration) throws InterruptedException {
+        LatencyReport report = new LatencyReport();
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long started = System.nanoTime();
+
+        for (int worker = 0; worker < concurrency; worker++) {
+            workers.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    next(random, report);
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        report.setElapsedNanos(System.nanoTime() - started);
+        return report;
+    }
+
+    // 60% reads by id, 25% searches, 8% creates, 5% PATCHes, 2% deletes
+    private void next(ThreadLocalRandom random, LatencyReport report) {
+        int roll = random.nextInt(100);
+        if (roll < 60) {
+            send(report, "GET /recipes/{id}", () -> get("/recipes/" + randomId(random)), 200);
+        } else if (roll < 85) {
+            search(random, report);
+        } else if (roll < 93) {
+            create(random, report);
+        } else if (roll < 98) {
+            send(report, "PATCH /recipes/{id}",
+                    () -> patch("/recipes/" + randomId(random), recipeBody(random)), 200);
+        } else {
+            Long id = createdIds.poll();
+            if (id == null) {
+                create(random, report);
+            } else {
+                send(report, "DELETE /recipes/{id}", () -> delete("/recipes/" + id), 200);
+            }
+        }
+    }
+
+    private void search(ThreadLocalRandom random, LatencyReport report) {
+        String ingredient = DatasetGenerator.INGREDIENTS.get(random.nextInt(40));
+        String word = DatasetGenerator.INSTRUCTION_WORDS.get(random.nextInt(DatasetGenerator.INSTRUCTION_WORDS.size()));
+
+        switch (random.nextInt(fullText ? 9 : 7)) {
+            case 0:
+                send(report, "GET /recipes?isVegetarian", () -> get("/recipes?isVegetarian=" + random.nextBoolean() + "&limit=20"), 200);
+                break;
+            case 1:
+                send(report, "GET /recipes?numOfServings", () -> get("/recipes?numOfServings=" + (2 + random.nextInt(9)) + "&limit=20"), 200);
+                break;
+            case 2:
+                send(report, "GET /recipes?includeIngredients", () -> get("/recipes?includeIngredients=" + encode(ingredient) + "&limit=20"), 200);
+                break;
+            case 3:
+                send(report, "GET /recipes?excludeIngredients", () -> get("/recipes?excludeIngredients=" + encode(ingredient) + "&limit=20"), 200);
+                break;
+            case 4:
+                send(report, "GET /recipes?instructionsContains", () -> get("/recipes?instructionsContains=" + encode(word) + "&limit=20"), 200);
+                break;
+            case 5:
+                send(report, "GET /recipes?all filters", () -> get("/recipes?isVegetarian=true&numOfServings=4&includeIngredients="
+                        + encode(ingredient) + "&instructionsContains=" + encode(word) + "&limit=20"), 200);
+                break;
+            case 6:
+                searchNextPage(report);
+                break;
+            case 7:
+                send(report, "GET /recipes?instructionsMatch=term", () -> get("/recipes?instructionsContains=" + encode(word)
+                        + "+" + encode(DatasetGenerator.INSTRUCTION_WORDS.get(random.nextInt(10))) + "&instructionsMatch=term&limit=20"), 200);
+                break;
+            default:
+                send(report, "GET /recipes?instructionsMatch=phrase", () -> get("/recipes?instructionsContains=" + encode(word)
+                        + "&instructionsMatch=phrase&limit=20"), 200);
+        }
+    }
+
+    // first page, then the page after its cursor
+    private void searchNextPage(LatencyReport report) {
+        HttpResponse<String> firstPage = send(report, "GET /recipes?limit", () -> get("/recipes?limit=20"), 200);
+        if (firstPage == null) {
+            return;
+        }
+        JsonNode nextCursor = readTree(firstPage.body()).path("nextCursor");
+        if (nextCursor.isTextual()) {
+            send(report, "GET /recipes?limit&after", () -> get("/recipes?limit=20&after=" + encode(nextCursor.asText())), 200);
+        }
+    }
+
+    private void create(ThreadLocalRandom random, LatencyReport report) {
+        HttpResponse<String> response = send(report, "POST /recipes", () -> post("/recipes", recipeBody(random)), 201);
+        if (response != null) {
+            createdIds.add(readTree(response.body()).path("id").asLong());
+        }
+    }
+
+    private HttpResponse<String> send(LatencyReport report, String operation, Supplier<HttpRequest> request, int expectedStatus) {
+        long started = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(request.get(), HttpResponse.BodyHandlers.ofString());
+            boolean expected = response.statusCode() == expectedStatus;
+            report.record(operation, System.nanoTime() - started, expected);
+            return expected ? response : null;
+        } catch (IOException e) {
+            report.record(operation, System.nanoTime() - started, false);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private String recipeBody(ThreadLocalRandom random) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("recipeName", "load test " + ProcessHandle.current().pid() + " " + nameSequence.incrementAndGet());
+        body.put("isVegetarian", random.nextBoolean());
+        body.put("numOfServings", 1 + random.nextInt(8));
+        body.put("instructions", "Mix everything, bake in the oven for 30 minutes and serve.");
+        body.put("ingredients", List.of(
+                Map.of("ingredientName", DatasetGenerator.INGREDIENTS.get(random.nextInt(50))),
+                Map.of("ingredientName", DatasetGenerator.INGREDIENTS.get(50 + random.nextInt(50)))));
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private long randomId(ThreadLocalRandom random) {
+        return 1 + random.nextInt(maxRecipeId);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpRequest patch(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpRequest delete(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).DELETE().build();
+    }
+
+    private static JsonNode readTree(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (IOException e) {
+            return objectMapper.missingNode();
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
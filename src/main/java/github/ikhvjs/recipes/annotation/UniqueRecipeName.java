@@ -14,4 +14,7 @@ public @interface UniqueRecipeName {
     String message() default "Recipe Name is already registered";
     Class<?>[] groups() default { };
     Class<? extends Payload>[] payload() default { };
+
+    // validation group of the constraint, so bulk imports can check names per batch instead
+    interface Group { }
 }
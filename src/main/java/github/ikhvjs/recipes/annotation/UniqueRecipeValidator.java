@@ -1,5 +1,6 @@
 package github.ikhvjs.recipes.annotation;
 
+import github.ikhvjs.recipes.index.RecipeNameRegistry;
 import github.ikhvjs.recipes.repository.RecipeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -10,8 +11,12 @@ public class UniqueRecipeValidator implements ConstraintValidator<UniqueRecipeNa
     @Autowired
     RecipeRepository recipeRepository;
 
+    @Autowired
+    RecipeNameRegistry recipeNameRegistry;
+
     @Override
     public boolean isValid(String recipeName, ConstraintValidatorContext constraintValidatorContext) {
-        return !recipeRepository.existsByRecipeName(recipeName);
+        // names the registry has never seen skip the database
+        return !recipeNameRegistry.mightContain(recipeName) || !recipeRepository.existsByRecipeName(recipeName);
     }
 }
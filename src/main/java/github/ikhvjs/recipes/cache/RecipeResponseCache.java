@@ -0,0 +1,64 @@
+package github.ikhvjs.recipes.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import github.ikhvjs.recipes.model.Recipe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Serialized JSON of single recipes, so that GET /recipes/{id} can write the cached bytes
+ * instead of running Jackson over the recipe and its ingredients on every request.
+ * <p>
+ * An entry is only served while the recipe's modifiedTime still matches, which ingredient
+ * writes move as well. Write paths also evict the recipe, so deleted recipes do not linger.
+ */
+@Component
+public class RecipeResponseCache {
+    private final ObjectWriter recipeWriter;
+    private final Cache<Long, Entry> entries;
+
+    public RecipeResponseCache(ObjectMapper objectMapper,
+                               @Value("${recipes.response-cache.max-bytes:67108864}") long maxBytes) {
+        this.recipeWriter = objectMapper.writerFor(Recipe.class);
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long id, Entry entry) -> entry.body.length)
+                .build();
+    }
+
+    public byte[] getOrSerialize(Recipe recipe) throws JsonProcessingException {
+        Entry entry = entries.getIfPresent(recipe.getId());
+        if (entry != null && Objects.equals(entry.modifiedTime, recipe.getModifiedTime())) {
+            return entry.body;
+        }
+
+        byte[] body = recipeWriter.writeValueAsBytes(recipe);
+        entries.put(recipe.getId(), new Entry(recipe.getModifiedTime(), body));
+        return body;
+    }
+
+    public void evict(Long recipeId) {
+        entries.invalidate(recipeId);
+    }
+
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+    private static final class Entry {
+        private final LocalDateTime modifiedTime;
+        private final byte[] body;
+
+        private Entry(LocalDateTime modifiedTime, byte[] body) {
+            this.modifiedTime = modifiedTime;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package github.ikhvjs.recipes.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Records how many SQL statements each request of RecipeController and IngredientController
+ * prepares, tagged like http.server.requests with the method and the mapping of the request.
+ * Latency histograms, Hibernate statistics and the Hikari pool gauges come from the actuator
+ * and are served together with this at /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    // a read or write of one recipe is 1-3 statements and a search 2-4 with its facets, one bucket
+    // each; only the bulk import, export and delete grow with the number of recipes
+    private static final double[] STATEMENT_BUCKETS = {1, 2, 3, 4, 5, 10, 50, 100};
+
+    private final MeterRegistry meterRegistry;
+
+    public MetricsConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new SqlStatementInterceptor());
+    }
+
+    private class SqlStatementInterceptor implements HandlerInterceptor {
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            SqlStatementCounter.reset();
+            return true;
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                    Exception ex) {
+            Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("recipes.http.sql.statements")
+                    .description("SQL statements prepared by Hibernate per request")
+                    .baseUnit("statements")
+                    .serviceLevelObjectives(STATEMENT_BUCKETS)
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+                    .register(meterRegistry)
+                    .record(SqlStatementCounter.get());
+        }
+    }
+}
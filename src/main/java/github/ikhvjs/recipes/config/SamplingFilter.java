@@ -0,0 +1,157 @@
+package github.ikhvjs.recipes.config;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.Logger;
+import org.apache.logging.log4j.core.config.Node;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.filter.AbstractFilter;
+import org.apache.logging.log4j.message.Message;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps one in every {@code every} events at {@code level} or below from the loggers named
+ * {@code logger} or below it, and leaves all other events alone. Configured in log4j2-spring.xml
+ * as a context-wide filter, so it runs on the calling thread before the message is formatted.
+ * <p>
+ * Every overload is implemented so a call with parameters does not allocate a varargs array.
+ */
+@Plugin(name = "SamplingFilter", category = Node.CATEGORY, elementType = Filter.ELEMENT_TYPE, printObject = true)
+public final class SamplingFilter extends AbstractFilter {
+
+    private final String loggerName;
+    private final Level level;
+    private final int every;
+    private final AtomicLong events = new AtomicLong();
+
+    private SamplingFilter(String loggerName, Level level, int every, Result onMatch, Result onMismatch) {
+        super(onMatch, onMismatch);
+        this.loggerName = loggerName;
+        this.level = level;
+        this.every = every;
+    }
+
+    /**
+     * @param loggerName the logger, or the package of loggers, to sample
+     * @param level      the most severe level that is sampled, more severe events are always kept
+     * @param every      keep one in this many events, 1 keeps them all
+     * @param onMatch    the result for a kept event, NEUTRAL by default
+     * @param onMismatch the result for a dropped event, DENY by default
+     */
+    @PluginFactory
+    public static SamplingFilter createFilter(@PluginAttribute("logger") String loggerName,
+                                              @PluginAttribute("level") Level level,
+                                              @PluginAttribute(value = "every", defaultInt = 1) int every,
+                                              @PluginAttribute("onMatch") Result onMatch,
+                                              @PluginAttribute("onMismatch") Result onMismatch) {
+        if (loggerName == null || loggerName.isEmpty()) {
+            LOGGER.error("SamplingFilter needs a logger");
+            return null;
+        }
+        if (every < 1) {
+            LOGGER.error("SamplingFilter every must be at least 1, was {}", every);
+            return null;
+        }
+        return new SamplingFilter(loggerName, level == null ? Level.INFO : level, every,
+                onMatch == null ? Result.NEUTRAL : onMatch, onMismatch == null ? Result.DENY : onMismatch);
+    }
+
+    private Result filter(String name, Level eventLevel) {
+        if (!eventLevel.isLessSpecificThan(level) || !isSampled(name)) {
+            return Result.NEUTRAL;
+        }
+        return every == 1 || events.getAndIncrement() % every == 0 ? onMatch : onMismatch;
+    }
+
+    private boolean isSampled(String name) {
+        return name.startsWith(loggerName)
+                && (name.length() == loggerName.length() || name.charAt(loggerName.length()) == '.');
+    }
+
+    @Override
+    public Result filter(LogEvent event) {
+        return filter(event.getLoggerName(), event.getLevel());
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, Message msg, Throwable t) {
+        return filter(logger.getName(), level);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, Object msg, Throwable t) {
+        return filter(logger.getName(), level);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object... params) {
+        return filter(logger.getName(), level);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0) {
+        return filter(logger.getName(), level);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1) {
+        return filter(logger.getName(), level);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2) {
+        return filter(logger.getName(), level);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                         Object p3) {
+        return filter(logger.getName(), level);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                         Object p3, Object p4) {
+        return filter(logger.getName(), level);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                         Object p3, Object p4, Object p5) {
+        return filter(logger.getName(), level);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                         Object p3, Object p4, Object p5, Object p6) {
+        return filter(logger.getName(), level);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                         Object p3, Object p4, Object p5, Object p6, Object p7) {
+        return filter(logger.getName(), level);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                         Object p3, Object p4, Object p5, Object p6, Object p7, Object p8) {
+        return filter(logger.getName(), level);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object p0, Object p1, Object p2,
+                         Object p3, Object p4, Object p5, Object p6, Object p7, Object p8, Object p9) {
+        return filter(logger.getName(), level);
+    }
+
+    @Override
+    public String toString() {
+        return "logger=" + loggerName + ", level=" + level + ", every=" + every;
+    }
+}
@@ -0,0 +1,75 @@
+package github.ikhvjs.recipes.config;
+
+import github.ikhvjs.recipes.slowquery.SlowQueryLog;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.NoOpQueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Wraps the DataSource so the SQL and bind parameters of each statement reach SlowQueryLog,
+ * which only keeps them while it captures a search. Turned off with recipes.slow-query.enabled.
+ */
+@Configuration
+@ConditionalOnProperty(name = "recipes.slow-query.enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryConfig {
+
+    @Bean
+    public static BeanPostProcessor slowQueryDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create((DataSource) bean)
+                            .name(beanName)
+                            .listener(new StatementListener())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static class StatementListener extends NoOpQueryExecutionListener {
+
+        @Override
+        public void afterQuery(ExecutionInfo executionInfo, List<QueryInfo> queryInfos) {
+            if (!SlowQueryLog.isCapturing()) {
+                return;
+            }
+            for (QueryInfo queryInfo : queryInfos) {
+                List<List<ParameterSetOperation>> parametersList = queryInfo.getParametersList();
+                List<Object> parameters = parametersList.isEmpty() ? List.of() : parameters(parametersList.get(0));
+                SlowQueryLog.statementExecuted(queryInfo.getQuery(), parameters, executionInfo.getElapsedTime());
+            }
+        }
+
+        // the bind values in parameter order, null for setNull
+        private static List<Object> parameters(List<ParameterSetOperation> operations) {
+            List<ParameterSetOperation> sorted = new ArrayList<>();
+            for (ParameterSetOperation operation : operations) {
+                if (operation.getArgs()[0] instanceof Number
+                        && !ParameterSetOperation.isRegisterOutParameterOperation(operation)) {
+                    sorted.add(operation);
+                }
+            }
+            sorted.sort(Comparator.comparingInt(operation -> ((Number) operation.getArgs()[0]).intValue()));
+            List<Object> parameters = new ArrayList<>(sorted.size());
+            for (ParameterSetOperation operation : sorted) {
+                parameters.add(ParameterSetOperation.isSetNullParameterOperation(operation) ? null : operation.getArgs()[1]);
+            }
+            return parameters;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package github.ikhvjs.recipes.config;
+
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers the MySQL full-text function so specifications can call it
+ * through CriteriaBuilder.function(...). Wired in with
+ * spring.jpa.properties.hibernate.metadata_builder_contributor.
+ */
+public class SqlFunctionContributor implements MetadataBuilderContributor {
+    public static final String MATCH_AGAINST = "match_against";
+
+    @Override
+    public void contribute(MetadataBuilder metadataBuilder) {
+        metadataBuilder.applySqlFunction(MATCH_AGAINST,
+                new SQLFunctionTemplate(StandardBasicTypes.DOUBLE, "match(?1) against (?2 in boolean mode)"));
+    }
+}
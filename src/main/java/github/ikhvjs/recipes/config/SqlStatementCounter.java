@@ -0,0 +1,27 @@
+package github.ikhvjs.recipes.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread, registered through
+ * hibernate.session_factory.statement_inspector. MetricsConfig resets the count when a
+ * request starts and records it when the request completes.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> count = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        count.get()[0]++;
+        return sql;
+    }
+
+    public static void reset() {
+        count.get()[0] = 0;
+    }
+
+    public static int get() {
+        return count.get()[0];
+    }
+}
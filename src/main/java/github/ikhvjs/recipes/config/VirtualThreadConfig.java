@@ -0,0 +1,59 @@
+package github.ikhvjs.recipes.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Constants;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs every Tomcat request, and so RecipeController and IngredientController, on its
+ * own virtual thread instead of the bounded server.tomcat.threads pool. Enabled with
+ * recipes.virtual-threads.enabled, see application-virtual-threads.properties.
+ * <p>
+ * The project still compiles for Java 11, so the executor is looked up reflectively and
+ * the mode needs a Java 21 or later runtime. It also refuses to start while Log4j keeps its
+ * garbage-free buffers in thread locals, which every virtual thread would allocate anew.
+ */
+@Configuration
+@ConditionalOnProperty(name = "recipes.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+    private static final Logger logger = LogManager.getLogger(VirtualThreadConfig.class);
+
+    // shut down by Spring, Tomcat only stops executors it created itself
+    @Bean
+    public ExecutorService virtualThreadExecutor() {
+        requireThreadLocalsDisabled(Constants.ENABLE_THREADLOCALS);
+        logger.info("Handling requests on virtual threads");
+        return newVirtualThreadPerTaskExecutor();
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    // log4j2.component.properties turns them on for the thread pool, and Log4j reads them once at startup
+    static void requireThreadLocalsDisabled(boolean enableThreadLocals) {
+        if (enableThreadLocals) {
+            throw new IllegalStateException("recipes.virtual-threads.enabled needs Log4j thread locals turned off, "
+                    + "start the JVM with -Dlog4j2.enable.threadlocals=false");
+        }
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("recipes.virtual-threads.enabled needs a Java 21 or later runtime, running on "
+                    + Runtime.version(), e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the virtual thread executor", e);
+        }
+    }
+}
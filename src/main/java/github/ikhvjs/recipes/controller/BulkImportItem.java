@@ -0,0 +1,35 @@
+package github.ikhvjs.recipes.controller;
+
+import java.util.List;
+
+public class BulkImportItem {
+    private final int index;
+    private final Long id;
+    private final List<String> messages;
+
+    public BulkImportItem(int index, Long id, List<String> messages) {
+        this.index = index;
+        this.id = id;
+        this.messages = messages;
+    }
+
+    public static BulkImportItem created(int index, Long id) {
+        return new BulkImportItem(index, id, List.of());
+    }
+
+    public static BulkImportItem failed(int index, List<String> messages) {
+        return new BulkImportItem(index, null, messages);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public List<String> getMessages() {
+        return messages;
+    }
+}
@@ -0,0 +1,27 @@
+package github.ikhvjs.recipes.controller;
+
+import java.util.List;
+
+public class BulkImportResult {
+    private final int created;
+    private final int failed;
+    private final List<BulkImportItem> items;
+
+    public BulkImportResult(int created, int failed, List<BulkImportItem> items) {
+        this.created = created;
+        this.failed = failed;
+        this.items = items;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public List<BulkImportItem> getItems() {
+        return items;
+    }
+}
@@ -0,0 +1,43 @@
+package github.ikhvjs.recipes.controller;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class DeleteQueryString {
+    // keeps the IN list of a single bulk delete within what the database handles comfortably
+    @NotEmpty(message = "ids : must not be empty")
+    @Size(max = 1000, message = "ids : must not contain more than 1000 ids")
+    private List<@Pattern(regexp = "^[1-9][0-9]{0,17}$", message = "ids : must be positive whole numbers") String> ids;
+
+    public DeleteQueryString() {}
+
+    public DeleteQueryString(List<String> ids) {
+        this.ids = ids;
+    }
+
+    @Override
+    public String toString() {
+        return "DeleteQueryString{" +
+                "ids=" + ids +
+                '}';
+    }
+
+    public List<String> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<String> ids) {
+        this.ids = ids;
+    }
+
+    public Set<Long> uniqueIds() {
+        return ids.stream()
+                .map(Long::valueOf)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+}
@@ -1,45 +1,73 @@
 package github.ikhvjs.recipes.controller;
 
+import github.ikhvjs.recipes.cache.RecipeResponseCache;
+import github.ikhvjs.recipes.index.IngredientSuggestIndex;
 import github.ikhvjs.recipes.exception.ResourceNotFoundException;
 import github.ikhvjs.recipes.model.Ingredient;
 import github.ikhvjs.recipes.model.Recipe;
 import github.ikhvjs.recipes.service.IngredientService;
+import github.ikhvjs.recipes.service.RecipeRevision;
 import github.ikhvjs.recipes.service.RecipeService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 public class IngredientController {
-    private static final Logger logger = LogManager.getLogger(RecipeController.class);
+    private static final Logger logger = LogManager.getLogger(IngredientController.class);
 
     private final RecipeService recipeService;
     private final IngredientService ingredientService;
+    private final RecipeResponseCache recipeResponseCache;
 
-    public IngredientController(RecipeService recipeService, IngredientService ingredientService) {
+    public IngredientController(RecipeService recipeService, IngredientService ingredientService,
+                                RecipeResponseCache recipeResponseCache) {
         this.recipeService = recipeService;
         this.ingredientService = ingredientService;
+        this.recipeResponseCache = recipeResponseCache;
     }
 
     @GetMapping("/recipes/{id}/ingredients")
-    public ResponseEntity<List<Ingredient>> getIngredientsByRecipeId(@PathVariable Long id) {
+    public ResponseEntity<List<Ingredient>> getIngredientsByRecipeId(@PathVariable Long id, WebRequest request) {
         logger.info("get ingredients with recipe id: {}", id);
-        if (!recipeService.existsById(id)) {
+        Optional<RecipeRevision> revision = recipeService.findRevisionById(id);
+        if (revision.isPresent() && RecipeVersion.checkNotModified(request, revision.get())) {
+            return null;
+        }
+        if (revision.isEmpty() && !recipeService.existsById(id)) {
             throw new ResourceNotFoundException("Not found Recipe with id = " + id);
         }
 
         List<Ingredient> ingredients = ingredientService.findByRecipeId(id);
 
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        revision.ifPresent(recipeRevision -> {
+            response.eTag(RecipeVersion.eTag(recipeRevision.getVersion()));
+            if (recipeRevision.getModifiedTime() != null) {
+                response.lastModified(RecipeVersion.lastModified(recipeRevision.getModifiedTime()));
+            }
+        });
+        return response.body(ingredients);
+    }
+
+    // no database access, answered from IngredientSuggestIndex on every keystroke
+    @GetMapping("/ingredients:suggest")
+    public ResponseEntity<List<IngredientSuggestIndex.Suggestion>> suggestIngredients(@Valid SuggestQueryString queryString) {
+        logger.debug("suggest ingredients with query string: {}", queryString);
+
         return ResponseEntity
                 .ok()
-                .body(ingredients);
+                .body(ingredientService.suggest(queryString.getPrefix(), queryString.limitOrDefault()));
     }
 
     @GetMapping("/ingredients/{id}")
@@ -64,6 +92,7 @@ public class IngredientController {
 
         ingredient.setRecipe(recipe);
         Ingredient newIngredient =  ingredientService.create(ingredient);
+        recipeResponseCache.evict(id);
 
         return ResponseEntity
                 .created(new URI("/ingredients/" + newIngredient.getId()))
@@ -71,18 +100,21 @@ public class IngredientController {
     }
 
     @PatchMapping("/ingredients/{id}")
-    public ResponseEntity<Ingredient> updateIngredient(@PathVariable long id, @Valid @RequestBody Ingredient ingredient) {
+    public ResponseEntity<Ingredient> updateIngredient(@PathVariable long id, @Valid @RequestBody Ingredient ingredient,
+                                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.info("update a ingredient name to {} with ingredient id: {}", ingredient.getIngredientName(), id);
 
-        Ingredient existingIngredient = ingredientService
-                .findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Not found Ingredient with id = " + id));
+        // ingredients share the ETag of their recipe, whose version the UPDATE of the ingredient is
+        // conditional on; nothing is read before it. The recipe's cached response is not evicted,
+        // it is only served while the recipe's modifiedTime, which the UPDATE moves, still matches
+        List<Long> versions = RecipeVersion.versions(ifMatch);
+        Ingredient updatedIngredient = ingredientService.update(id, ingredient, versions);
 
-        existingIngredient.setIngredientName(ingredient.getIngredientName());
-
-        return ResponseEntity
-                .ok()
-                .body(ingredientService.update(existingIngredient));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (versions != null && versions.size() == 1) {
+            response.eTag(RecipeVersion.eTag(versions.get(0) + 1));
+        }
+        return response.body(updatedIngredient);
     }
 
     @DeleteMapping("/ingredients/{id}")
@@ -94,6 +126,7 @@ public class IngredientController {
                 .orElseThrow(() -> new ResourceNotFoundException("Not found Ingredient with id = " + id));;
 
         ingredientService.deleteById(existingIngredient.getId());
+        evictRecipeOf(existingIngredient);
 
         return ResponseEntity.ok().build();
     }
@@ -107,7 +140,14 @@ public class IngredientController {
         }
 
         ingredientService.deleteByRecipeId(id);
+        recipeResponseCache.evict(id);
 
         return ResponseEntity.ok().build();
     }
+
+    private void evictRecipeOf(Ingredient ingredient) {
+        if (ingredient.getRecipe() != null) {
+            recipeResponseCache.evict(ingredient.getRecipe().getId());
+        }
+    }
 }
@@ -0,0 +1,59 @@
+package github.ikhvjs.recipes.controller;
+
+import javax.validation.constraints.*;
+import java.util.List;
+
+public class PantryMatchRequest {
+    @NotEmpty(message = "must not be empty")
+    @Size(max = 100, message = "must not contain more than 100 ingredients")
+    private List<@NotNull @Size(min = 1, max = 100, message = "size must be between 1 and 100") String> ingredients;
+
+    @Min(value = 0, message = "range must be between 0 and 10")
+    @Max(value = 10, message = "range must be between 0 and 10")
+    private Integer maxMissing;
+
+    @Min(value = 1, message = "range must be between 1 and 100")
+    @Max(value = 100, message = "range must be between 1 and 100")
+    private Integer limit;
+
+    public PantryMatchRequest() {}
+
+    public PantryMatchRequest(List<String> ingredients, Integer maxMissing, Integer limit) {
+        this.ingredients = ingredients;
+        this.maxMissing = maxMissing;
+        this.limit = limit;
+    }
+
+    @Override
+    public String toString() {
+        return "PantryMatchRequest{" +
+                "ingredients=" + ingredients +
+                ", maxMissing=" + maxMissing +
+                ", limit=" + limit +
+                '}';
+    }
+
+    public List<String> getIngredients() {
+        return ingredients;
+    }
+
+    public void setIngredients(List<String> ingredients) {
+        this.ingredients = ingredients;
+    }
+
+    public Integer getMaxMissing() {
+        return maxMissing;
+    }
+
+    public void setMaxMissing(Integer maxMissing) {
+        this.maxMissing = maxMissing;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+}
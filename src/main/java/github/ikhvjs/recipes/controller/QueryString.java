@@ -16,6 +16,18 @@ public class QueryString {
     @Size(min = 1, max = 2000, message = "instructionsContains : size must between 1 and 2000")
     private String instructionsContains;
 
+    @Pattern(regexp = "^term$|^phrase$", message = "instructionsMatch : must be term or phrase")
+    private String instructionsMatch;
+
+    @Pattern(regexp = "^[1-9][0-9]?$|^100$", message = "limit : range must be between 1 and 100")
+    private String limit;
+
+    @Size(min = 1, max = 200, message = "after : size must be between 1 and 200")
+    private String after;
+
+    private List<@Pattern(regexp = "^isVegetarian$|^numOfServings$|^ingredients$",
+            message = "facets : must be isVegetarian, numOfServings or ingredients") String> facets;
+
     public QueryString(){}
 
     public QueryString(String isVegetarian, String numOfServings, List<String> includeIngredients, List<String> excludeIngredients, String instructionsContains) {
@@ -34,6 +46,10 @@ public class QueryString {
                 ", includeIngredients=" + includeIngredients +
                 ", excludeIngredients=" + excludeIngredients +
                 ", instructionsContains='" + instructionsContains + '\'' +
+                ", instructionsMatch=" + instructionsMatch +
+                ", limit=" + limit +
+                ", after='" + after + '\'' +
+                ", facets=" + facets +
                 '}';
     }
 
@@ -76,4 +92,40 @@ public class QueryString {
     public void setInstructionsContains(String instructionsContains) {
         this.instructionsContains = instructionsContains;
     }
+
+    public String getInstructionsMatch() {
+        return instructionsMatch;
+    }
+
+    public void setInstructionsMatch(String instructionsMatch) {
+        this.instructionsMatch = instructionsMatch;
+    }
+
+    public String getLimit() {
+        return limit;
+    }
+
+    public void setLimit(String limit) {
+        this.limit = limit;
+    }
+
+    public String getAfter() {
+        return after;
+    }
+
+    public void setAfter(String after) {
+        this.after = after;
+    }
+
+    public List<String> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(List<String> facets) {
+        this.facets = facets;
+    }
+
+    public boolean isPaged() {
+        return limit != null || after != null;
+    }
 }
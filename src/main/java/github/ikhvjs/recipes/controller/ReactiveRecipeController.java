@@ -0,0 +1,59 @@
+package github.ikhvjs.recipes.controller;
+
+import github.ikhvjs.recipes.exception.ResourceNotFoundException;
+import github.ikhvjs.recipes.model.Ingredient;
+import github.ikhvjs.recipes.model.Recipe;
+import github.ikhvjs.recipes.service.ReactiveRecipeService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+
+/**
+ * Read endpoints of RecipeController and IngredientController over ReactiveRecipeService,
+ * under /reactive so both stacks can be benchmarked side by side in one instance.
+ * The request thread is released while the database is queried, searches are streamed
+ * as NDJSON one recipe at a time.
+ */
+@RestController
+@RequestMapping("/reactive")
+@ConditionalOnProperty(name = "recipes.reactive.enabled", havingValue = "true")
+public class ReactiveRecipeController {
+    private static final Logger logger = LogManager.getLogger(ReactiveRecipeController.class);
+
+    private final ReactiveRecipeService reactiveRecipeService;
+
+    public ReactiveRecipeController(ReactiveRecipeService reactiveRecipeService) {
+        this.reactiveRecipeService = reactiveRecipeService;
+    }
+
+    @GetMapping("/recipes/{id}")
+    public Mono<Recipe> getRecipe(@PathVariable Long id) {
+        logger.info("get recipe with id: {}", id);
+        return reactiveRecipeService.findById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Not found Recipe with id = " + id)));
+    }
+
+    @GetMapping(value = "/recipes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Recipe> searchRecipes(@Valid QueryString queryString) {
+        logger.info("get recipes with query string: {}", queryString);
+        return reactiveRecipeService.search(queryString);
+    }
+
+    @GetMapping("/recipes/{id}/ingredients")
+    public Flux<Ingredient> getIngredientsByRecipeId(@PathVariable Long id) {
+        logger.info("get ingredients by recipe id: {}", id);
+        return reactiveRecipeService.existsById(id)
+                .flatMapMany(exists -> exists
+                        ? reactiveRecipeService.findIngredientsByRecipeId(id)
+                        : Flux.error(new ResourceNotFoundException("Not found Recipe with id = " + id)));
+    }
+}
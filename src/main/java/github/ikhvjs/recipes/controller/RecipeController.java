@@ -1,17 +1,36 @@
 package github.ikhvjs.recipes.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import github.ikhvjs.recipes.annotation.UniqueRecipeName;
+import github.ikhvjs.recipes.cache.RecipeResponseCache;
 import github.ikhvjs.recipes.exception.ResourceNotFoundException;
 import github.ikhvjs.recipes.model.Recipe;
+import github.ikhvjs.recipes.service.RecipeImportService;
+import github.ikhvjs.recipes.service.RecipeRevision;
 import github.ikhvjs.recipes.service.RecipeService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.groups.Default;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 
 @RestController
@@ -19,31 +38,111 @@ public class RecipeController {
     private static final Logger logger = LogManager.getLogger(RecipeController.class);
 
     private final RecipeService recipeService;
+    private final RecipeImportService recipeImportService;
+    private final RecipeResponseCache recipeResponseCache;
+    private final ObjectWriter recipeWriter;
 
-    public RecipeController(RecipeService recipeService) {
+    public RecipeController(RecipeService recipeService, RecipeImportService recipeImportService,
+                            RecipeResponseCache recipeResponseCache, ObjectMapper objectMapper) {
         this.recipeService = recipeService;
+        this.recipeImportService = recipeImportService;
+        this.recipeResponseCache = recipeResponseCache;
+        // the servlet output buffer decides when to flush, not every recipe
+        this.recipeWriter = objectMapper.writerFor(Recipe.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     @GetMapping("/recipes/{id}")
-    public ResponseEntity<Recipe> getRecipe(@PathVariable Long id) {
+    public ResponseEntity<byte[]> getRecipe(@PathVariable Long id, WebRequest request) throws IOException {
         logger.info("get recipe with id: {}", id);
+        // answers 304 from the version and modifiedTime alone, without loading the recipe and its ingredients
+        Optional<RecipeRevision> revision = recipeService.findRevisionById(id);
+        if (revision.isPresent() && RecipeVersion.checkNotModified(request, revision.get())) {
+            return null;
+        }
+
         Recipe existingRecipe = recipeService
                 .findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Not found Recipe with id = " + id));
 
+        ResponseEntity.BodyBuilder response = ResponseEntity
+                .ok()
+                .contentType(MediaType.APPLICATION_JSON);
+        if (existingRecipe.getVersion() != null) {
+            response.eTag(RecipeVersion.eTag(existingRecipe.getVersion()));
+        }
+        if (existingRecipe.getModifiedTime() != null) {
+            response.lastModified(RecipeVersion.lastModified(existingRecipe.getModifiedTime()));
+        }
+        return response.body(recipeResponseCache.getOrSerialize(existingRecipe));
+    }
+
+    @GetMapping("/recipes/{id}/similar")
+    public ResponseEntity<List<RecipeSimilarity>> getSimilarRecipes(@PathVariable Long id,
+                                                                    @Valid SimilarQueryString queryString) {
+        logger.info("get recipes similar to recipe with id: {}", id);
+        if (!recipeService.existsById(id)) {
+            throw new ResourceNotFoundException("Not found Recipe with id = " + id);
+        }
+
         return ResponseEntity
                 .ok()
-                .body(existingRecipe);
+                .body(recipeService.findSimilar(id, queryString.limitOrDefault()));
     }
 
     @GetMapping("/recipes")
-    public List<Recipe> searchRecipes(@Valid QueryString queryString)  {
+    public ResponseEntity<?> searchRecipes(@Valid QueryString queryString)  {
         logger.info("get recipes with query string: {}", queryString);
-        return recipeService.search(queryString);
+        if (queryString.getFacets() != null) {
+            // the facets count every matching recipe, not only those of the page
+            RecipePage page = queryString.isPaged()
+                    ? recipeService.searchPage(queryString)
+                    : new RecipePage(recipeService.search(queryString), null);
+            return ResponseEntity
+                    .ok()
+                    .body(new RecipePage(page.getRecipes(), page.getNextCursor(), recipeService.facets(queryString)));
+        }
+
+        if (queryString.isPaged()) {
+            return ResponseEntity
+                    .ok()
+                    .body(recipeService.searchPage(queryString));
+        }
+
+        return ResponseEntity
+                .ok()
+                .body(recipeService.search(queryString));
+    }
+
+    @PostMapping("/recipes:match")
+    public ResponseEntity<List<RecipeMatch>> matchRecipes(@Valid @RequestBody PantryMatchRequest pantry) {
+        logger.info("Matching recipes with pantry: {}", pantry);
+
+        return ResponseEntity
+                .ok()
+                .body(recipeService.match(pantry));
+    }
+
+    @GetMapping(value = "/recipes:export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportRecipes(HttpServletResponse response) throws IOException {
+        logger.info("Exporting all recipes");
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+
+        try (JsonGenerator generator = recipeWriter.getFactory().createGenerator(response.getOutputStream())) {
+            // lines are separated by the newline written after each recipe, not by a space
+            generator.setRootValueSeparator(null);
+            recipeService.exportAll(recipe -> {
+                try {
+                    recipeWriter.writeValue(generator, recipe);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
     }
 
     @PostMapping("/recipes")
-    public ResponseEntity<Recipe> createRecipe(@Valid @RequestBody Recipe recipe) throws URISyntaxException {
+    public ResponseEntity<Recipe> createRecipe(@Validated({Default.class, UniqueRecipeName.Group.class}) @RequestBody Recipe recipe) throws URISyntaxException {
         logger.info("Creating new recipe with name: {}", recipe.getRecipeName());
 
         Recipe newRecipe = recipeService.create(recipe);
@@ -53,23 +152,30 @@ public class RecipeController {
                 .body(newRecipe);
     }
 
+    @PostMapping(value = "/recipes:bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkImportResult> importRecipes(InputStream body) throws IOException {
+        logger.info("Importing recipes in bulk");
+
+        return ResponseEntity
+                .ok()
+                .body(recipeImportService.importRecipes(body));
+    }
+
     @PatchMapping("/recipes/{id}")
-    public ResponseEntity<?> updateRecipe(@Valid @RequestBody Recipe recipe,
-                                           @PathVariable Long id) {
+    public ResponseEntity<?> updateRecipe(@Validated({Default.class, UniqueRecipeName.Group.class}) @RequestBody Recipe recipe,
+                                           @PathVariable Long id,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.info("Updating recipe with id: {}, recipe name: {}", id, recipe.getRecipeName());
 
-        Recipe existingRecipe = recipeService
-                .findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Not found Recipe with id = " + id));
-
-        existingRecipe.setRecipeName(recipe.getRecipeName());
-        existingRecipe.setIsVegetarian(recipe.getIsVegetarian());
-        existingRecipe.setInstructions(recipe.getInstructions());
-        existingRecipe.setNumOfServings(recipe.getNumOfServings());
+        // a single UPDATE ... WHERE id = ? AND version IN (the versions of If-Match), nothing is read before it
+        Recipe updatedRecipe = recipeService.update(id, recipe, RecipeVersion.versions(ifMatch));
+        recipeResponseCache.evict(id);
 
-        return ResponseEntity
-                .ok()
-                .body(recipeService.update(existingRecipe));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (updatedRecipe.getVersion() != null) {
+            response.eTag(RecipeVersion.eTag(updatedRecipe.getVersion()));
+        }
+        return response.body(updatedRecipe);
     }
 
     @DeleteMapping("/recipes/{id}")
@@ -81,9 +187,22 @@ public class RecipeController {
                 .orElseThrow(() -> new ResourceNotFoundException("Not found Recipe with id = " + id));
 
         recipeService.deleteById(existingRecipe.getId());
+        recipeResponseCache.evict(existingRecipe.getId());
 
         return ResponseEntity.ok().build();
     }
 
+    @DeleteMapping("/recipes")
+    public ResponseEntity<BulkDeleteResult> deleteRecipes(@Valid DeleteQueryString queryString) {
+        logger.info("Deleting recipes with ids {}", queryString.getIds());
+
+        Set<Long> uniqueIds = queryString.uniqueIds();
+        int deleted = recipeService.deleteAllById(uniqueIds);
+        uniqueIds.forEach(recipeResponseCache::evict);
+
+        return ResponseEntity
+                .ok()
+                .body(new BulkDeleteResult(uniqueIds.size(), deleted));
+    }
 
 }
@@ -0,0 +1,56 @@
+package github.ikhvjs.recipes.controller;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Map;
+
+// only the facets asked for are set, the others are left out of the response
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RecipeFacets {
+    private Map<String, Long> isVegetarian;
+    private Map<String, Long> numOfServings;
+    private List<IngredientCount> ingredients;
+
+    public Map<String, Long> getIsVegetarian() {
+        return isVegetarian;
+    }
+
+    public void setIsVegetarian(Map<String, Long> isVegetarian) {
+        this.isVegetarian = isVegetarian;
+    }
+
+    public Map<String, Long> getNumOfServings() {
+        return numOfServings;
+    }
+
+    public void setNumOfServings(Map<String, Long> numOfServings) {
+        this.numOfServings = numOfServings;
+    }
+
+    public List<IngredientCount> getIngredients() {
+        return ingredients;
+    }
+
+    public void setIngredients(List<IngredientCount> ingredients) {
+        this.ingredients = ingredients;
+    }
+
+    public static class IngredientCount {
+        private final String ingredientName;
+        private final long recipeCount;
+
+        public IngredientCount(String ingredientName, long recipeCount) {
+            this.ingredientName = ingredientName;
+            this.recipeCount = recipeCount;
+        }
+
+        public String getIngredientName() {
+            return ingredientName;
+        }
+
+        public long getRecipeCount() {
+            return recipeCount;
+        }
+    }
+}
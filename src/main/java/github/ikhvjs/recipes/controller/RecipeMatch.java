@@ -0,0 +1,23 @@
+package github.ikhvjs.recipes.controller;
+
+import github.ikhvjs.recipes.model.Recipe;
+
+import java.util.List;
+
+public class RecipeMatch {
+    private final Recipe recipe;
+    private final List<String> missingIngredients;
+
+    public RecipeMatch(Recipe recipe, List<String> missingIngredients) {
+        this.recipe = recipe;
+        this.missingIngredients = missingIngredients;
+    }
+
+    public Recipe getRecipe() {
+        return recipe;
+    }
+
+    public List<String> getMissingIngredients() {
+        return missingIngredients;
+    }
+}
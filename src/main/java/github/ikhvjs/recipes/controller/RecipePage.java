@@ -0,0 +1,35 @@
+package github.ikhvjs.recipes.controller;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import github.ikhvjs.recipes.model.Recipe;
+
+import java.util.List;
+
+public class RecipePage {
+    private final List<Recipe> recipes;
+    private final String nextCursor;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final RecipeFacets facets;
+
+    public RecipePage(List<Recipe> recipes, String nextCursor) {
+        this(recipes, nextCursor, null);
+    }
+
+    public RecipePage(List<Recipe> recipes, String nextCursor, RecipeFacets facets) {
+        this.recipes = recipes;
+        this.nextCursor = nextCursor;
+        this.facets = facets;
+    }
+
+    public List<Recipe> getRecipes() {
+        return recipes;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public RecipeFacets getFacets() {
+        return facets;
+    }
+}
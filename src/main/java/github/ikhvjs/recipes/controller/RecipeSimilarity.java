@@ -0,0 +1,21 @@
+package github.ikhvjs.recipes.controller;
+
+import github.ikhvjs.recipes.model.Recipe;
+
+public class RecipeSimilarity {
+    private final Recipe recipe;
+    private final double similarity;
+
+    public RecipeSimilarity(Recipe recipe, double similarity) {
+        this.recipe = recipe;
+        this.similarity = similarity;
+    }
+
+    public Recipe getRecipe() {
+        return recipe;
+    }
+
+    public double getSimilarity() {
+        return similarity;
+    }
+}
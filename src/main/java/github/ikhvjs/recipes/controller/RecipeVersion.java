@@ -0,0 +1,52 @@
+package github.ikhvjs.recipes.controller;
+
+import github.ikhvjs.recipes.service.RecipeRevision;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+// Recipes and their ingredients are versioned by Recipe.version, which ingredient writes also bump.
+// The ETag is that version, so If-Match can be bound to the conditional UPDATE as it is
+final class RecipeVersion {
+    private RecipeVersion() {
+    }
+
+    static String eTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    // null if any version will do, for no If-Match or "*". Otherwise the versions of its strong
+    // ETags, empty if none is one of ours; weak ETags never match as required for If-Match
+    static List<Long> versions(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        List<Long> versions = new ArrayList<>();
+        for (String eTag : ifMatch.split(",")) {
+            String value = eTag.trim();
+            if (value.length() > 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                try {
+                    versions.add(Long.valueOf(value.substring(1, value.length() - 1)));
+                } catch (NumberFormatException e) {
+                    // an ETag this API never hands out
+                }
+            }
+        }
+        return versions;
+    }
+
+    static boolean checkNotModified(WebRequest request, RecipeRevision revision) {
+        String eTag = eTag(revision.getVersion());
+        return revision.getModifiedTime() == null
+                ? request.checkNotModified(eTag)
+                : request.checkNotModified(eTag, lastModified(revision.getModifiedTime()));
+    }
+
+    // @UpdateTimestamp takes the JVM's local time
+    static long lastModified(LocalDateTime modifiedTime) {
+        return modifiedTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,35 @@
+package github.ikhvjs.recipes.controller;
+
+import javax.validation.constraints.Pattern;
+
+public class SimilarQueryString {
+    private static final int DEFAULT_LIMIT = 10;
+
+    @Pattern(regexp = "^[1-9][0-9]?$|^100$", message = "limit : range must be between 1 and 100")
+    private String limit;
+
+    public SimilarQueryString() {}
+
+    public SimilarQueryString(String limit) {
+        this.limit = limit;
+    }
+
+    @Override
+    public String toString() {
+        return "SimilarQueryString{" +
+                "limit=" + limit +
+                '}';
+    }
+
+    public String getLimit() {
+        return limit;
+    }
+
+    public void setLimit(String limit) {
+        this.limit = limit;
+    }
+
+    public int limitOrDefault() {
+        return limit == null ? DEFAULT_LIMIT : Integer.parseInt(limit);
+    }
+}
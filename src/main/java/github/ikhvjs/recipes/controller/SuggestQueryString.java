@@ -0,0 +1,52 @@
+package github.ikhvjs.recipes.controller;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+
+public class SuggestQueryString {
+    private static final int DEFAULT_LIMIT = 10;
+
+    @NotBlank(message = "prefix : size must be between 1 and 100")
+    @Size(max = 100, message = "prefix : size must be between 1 and 100")
+    private String prefix;
+
+    // IngredientSuggestIndex keeps the 20 most used names of every prefix
+    @Pattern(regexp = "^[1-9]$|^1[0-9]$|^20$", message = "limit : range must be between 1 and 20")
+    private String limit;
+
+    public SuggestQueryString() {}
+
+    public SuggestQueryString(String prefix, String limit) {
+        this.prefix = prefix;
+        this.limit = limit;
+    }
+
+    @Override
+    public String toString() {
+        return "SuggestQueryString{" +
+                "prefix='" + prefix + '\'' +
+                ", limit=" + limit +
+                '}';
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public String getLimit() {
+        return limit;
+    }
+
+    public void setLimit(String limit) {
+        this.limit = limit;
+    }
+
+    public int limitOrDefault() {
+        return limit == null ? DEFAULT_LIMIT : Integer.parseInt(limit);
+    }
+}
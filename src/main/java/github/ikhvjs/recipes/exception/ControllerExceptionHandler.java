@@ -4,7 +4,10 @@ import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.BindException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -46,6 +49,46 @@ public class ControllerExceptionHandler {
                 request.getDescription(false));
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    @ResponseStatus(value = HttpStatus.PRECONDITION_FAILED)
+    public ErrorMessage preconditionFailedExceptionHandler(PreconditionFailedException e, WebRequest request) {
+        logger.debug("preconditionFailedExceptionHandler");
+        return new ErrorMessage(
+                HttpStatus.PRECONDITION_FAILED.value(),
+                LocalDateTime.now(),
+                List.of(e.getMessage()),
+                request.getDescription(false));
+    }
+
+    // an endpoint answered from an in-memory index that is turned off on this instance
+    @ExceptionHandler(ServiceUnavailableException.class)
+    @ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorMessage serviceUnavailableExceptionHandler(ServiceUnavailableException e, WebRequest request) {
+        logger.debug("serviceUnavailableExceptionHandler");
+        return new ErrorMessage(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                LocalDateTime.now(),
+                List.of(e.getMessage()),
+                request.getDescription(false));
+    }
+
+    // another request changed the row between our read and the versioned UPDATE. Only a request that
+    // sent If-Match asked for a precondition; without one it is a conflict the client may simply retry
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorMessage> optimisticLockingFailureExceptionHandler(OptimisticLockingFailureException e, WebRequest request) {
+        logger.debug("optimisticLockingFailureExceptionHandler");
+        HttpStatus status = request.getHeader(HttpHeaders.IF_MATCH) == null
+                ? HttpStatus.CONFLICT
+                : HttpStatus.PRECONDITION_FAILED;
+        return ResponseEntity
+                .status(status)
+                .body(new ErrorMessage(
+                        status.value(),
+                        LocalDateTime.now(),
+                        List.of("Resource was modified by another request"),
+                        request.getDescription(false)));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(value = HttpStatus.BAD_REQUEST)
     public ErrorMessage methodArgumentNotValidExceptionHandler(MethodArgumentNotValidException e, WebRequest request) {
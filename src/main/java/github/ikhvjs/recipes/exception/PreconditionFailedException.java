@@ -0,0 +1,7 @@
+package github.ikhvjs.recipes.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
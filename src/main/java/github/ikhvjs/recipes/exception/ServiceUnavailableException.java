@@ -0,0 +1,7 @@
+package github.ikhvjs.recipes.exception;
+
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,158 @@
+package github.ikhvjs.recipes.index;
+
+import github.ikhvjs.recipes.model.Ingredient;
+import github.ikhvjs.recipes.model.IngredientName;
+import github.ikhvjs.recipes.repository.IngredientRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-process inverted index from ingredient name to the ids of the recipes using it.
+ * <p>
+ * It only sees writes made through this instance, so it is disabled by default and
+ * meant for single-instance deployments. Filters matching more than {@code maxIds}
+ * recipes are left to the SQL subqueries in RecipeSpecification.
+ */
+@Component
+public class IngredientIndex {
+    private static final Logger logger = LogManager.getLogger(IngredientIndex.class);
+
+    private final IngredientRepository ingredientRepository;
+    private final boolean enabled;
+    private final int maxIds;
+
+    private final Map<String, Roaring64NavigableMap> recipeIdsByName = new HashMap<>();
+    private final Map<Long, Set<String>> namesByRecipeId = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public IngredientIndex(IngredientRepository ingredientRepository,
+                           @Value("${recipes.ingredient-index.enabled:false}") boolean enabled,
+                           @Value("${recipes.ingredient-index.max-ids:1000}") int maxIds) {
+        this.ingredientRepository = ingredientRepository;
+        this.enabled = enabled;
+        this.maxIds = maxIds;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        List<Object[]> rows = ingredientRepository.findAllRecipeIdAndIngredientName();
+
+        lock.writeLock().lock();
+        try {
+            recipeIdsByName.clear();
+            namesByRecipeId.clear();
+            for (Object[] row : rows) {
+                add((Long) row[0], (String) row[1]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Indexed {} ingredients of {} recipes", rows.size(), namesByRecipeId.size());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ids of the recipes using any of the ingredients, or empty if the index is disabled
+     * or the filter is not selective enough to be worth an id list.
+     */
+    public Optional<List<Long>> findRecipeIds(Collection<String> ingredientNames) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Roaring64NavigableMap recipeIds = new Roaring64NavigableMap();
+
+        lock.readLock().lock();
+        try {
+            for (String ingredientName : ingredientNames) {
+                Roaring64NavigableMap posting = recipeIdsByName.get(IngredientName.normalize(ingredientName));
+                if (posting != null) {
+                    recipeIds.or(posting);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (recipeIds.getLongCardinality() > maxIds) {
+            return Optional.empty();
+        }
+        return Optional.of(Arrays.stream(recipeIds.toArray()).boxed().collect(Collectors.toList()));
+    }
+
+    public void put(Long recipeId, List<Ingredient> ingredients) {
+        if (!enabled) {
+            return;
+        }
+        List<String> ingredientNames = ingredients == null ? List.of() : ingredients.stream()
+                .map(Ingredient::getIngredientName)
+                .collect(Collectors.toList());
+        replace(recipeId, ingredientNames);
+    }
+
+    // the names of one recipe after a write that does not tell which name it replaced
+    public void reindex(Long recipeId, Collection<IngredientName> entries) {
+        if (!enabled) {
+            return;
+        }
+        replace(recipeId, entries.stream().map(IngredientName::getName).collect(Collectors.toList()));
+    }
+
+    public void remove(Long recipeId) {
+        if (!enabled) {
+            return;
+        }
+        replace(recipeId, List.of());
+    }
+
+    private void replace(Long recipeId, Collection<String> ingredientNames) {
+        lock.writeLock().lock();
+        try {
+            for (String name : new ArrayList<>(namesByRecipeId.getOrDefault(recipeId, Set.of()))) {
+                remove(recipeId, name);
+            }
+            for (String ingredientName : ingredientNames) {
+                add(recipeId, ingredientName);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Long recipeId, String ingredientName) {
+        String name = IngredientName.normalize(ingredientName);
+        recipeIdsByName.computeIfAbsent(name, key -> new Roaring64NavigableMap()).addLong(recipeId);
+        namesByRecipeId.computeIfAbsent(recipeId, key -> new HashSet<>()).add(name);
+    }
+
+    private void remove(Long recipeId, String name) {
+        Roaring64NavigableMap posting = recipeIdsByName.get(name);
+        if (posting != null) {
+            posting.removeLong(recipeId);
+            if (posting.isEmpty()) {
+                recipeIdsByName.remove(name);
+            }
+        }
+        Set<String> names = namesByRecipeId.get(recipeId);
+        if (names != null) {
+            names.remove(name);
+            if (names.isEmpty()) {
+                namesByRecipeId.remove(recipeId);
+            }
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package github.ikhvjs.recipes.index;
+
+import github.ikhvjs.recipes.model.IngredientName;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * In-process trie of the normalized ingredient names in use, for GET /ingredients:suggest.
+ * Every node keeps the {@value #MAX_LIMIT} names below it used by the most recipes, so a
+ * lookup walks the prefix and returns that list without visiting the subtree.
+ * <p>
+ * Recipe counts come from the ingredient ids in RecipeIngredientIds. Writes recount the
+ * names of one recipe and refresh the lists on the path of each name whose count changed.
+ * Lookups take no lock, nodes are published through volatile fields.
+ */
+@Component
+public class IngredientSuggestIndex {
+
+    public static final int MAX_LIMIT = 20;
+
+    private static final Comparator<Suggestion> RANKING = Comparator
+            .comparingInt(Suggestion::getRecipeCount).reversed()
+            .thenComparing(Suggestion::getIngredientName);
+
+    private final RecipeIngredientIds recipeIngredientIds;
+    private final boolean enabled;
+
+    private final Node root = new Node('\0');
+    // guarded by this
+    private final Map<Integer, Name> namesById = new HashMap<>();
+
+    public IngredientSuggestIndex(RecipeIngredientIds recipeIngredientIds,
+                                  @Value("${recipes.suggest-index.enabled:false}") boolean enabled) {
+        this.recipeIngredientIds = recipeIngredientIds;
+        this.enabled = enabled;
+    }
+
+    // entries holds the names of every id in RecipeIngredientIds
+    synchronized void rebuild(Collection<IngredientName> entries) {
+        if (!enabled) {
+            return;
+        }
+        namesById.clear();
+        root.clear();
+        entries.forEach(this::register);
+        for (Map.Entry<Long, int[]> entry : recipeIngredientIds.entries()) {
+            for (int id : entry.getValue()) {
+                namesById.get(id).recipeCount++;
+            }
+        }
+
+        // one bottom-up pass instead of refreshing the path of every name
+        for (Name name : namesById.values()) {
+            if (name.recipeCount > 0) {
+                path(name.key).getLast().terminal = name.toSuggestion();
+            }
+        }
+        refreshTree(root);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The names starting with the prefix, ignoring case, accents and extra whitespace, those
+     * used by the most recipes first. At most {@value #MAX_LIMIT}.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        if (!enabled) {
+            return List.of();
+        }
+        Node node = root;
+        String key = IngredientName.normalize(prefix);
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        List<Suggestion> top = node.top;
+        return top.subList(0, Math.min(limit, top.size()));
+    }
+
+    // previousIds null or ingredientIds empty if the recipe had or has no ingredients
+    synchronized void replace(int[] previousIds, int[] ingredientIds, Collection<IngredientName> entries) {
+        if (!enabled) {
+            return;
+        }
+        entries.forEach(this::register);
+
+        Map<Integer, Integer> changes = new HashMap<>();
+        for (int id : previousIds == null ? new int[0] : previousIds) {
+            changes.merge(id, -1, Integer::sum);
+        }
+        for (int id : ingredientIds) {
+            changes.merge(id, 1, Integer::sum);
+        }
+        changes.forEach((id, change) -> {
+            if (change != 0) {
+                Name name = namesById.get(id);
+                name.recipeCount += change;
+                refreshPath(name);
+            }
+        });
+    }
+
+    private void register(IngredientName entry) {
+        namesById.computeIfAbsent(entry.getId(), key -> new Name(entry.getName(), entry.getNormalizedName()));
+    }
+
+    private void refreshPath(Name name) {
+        Deque<Node> path = path(name.key);
+        path.getLast().terminal = name.recipeCount > 0 ? name.toSuggestion() : null;
+        for (Iterator<Node> nodes = path.descendingIterator(); nodes.hasNext(); ) {
+            nodes.next().refreshTop();
+        }
+    }
+
+    private void refreshTree(Node node) {
+        for (Node child : node.children) {
+            refreshTree(child);
+        }
+        node.refreshTop();
+    }
+
+    // the nodes from the root to the node of the key, created where missing
+    private Deque<Node> path(String key) {
+        Deque<Node> path = new ArrayDeque<>(key.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < key.length(); i++) {
+            node = node.addChild(key.charAt(i));
+            path.add(node);
+        }
+        return path;
+    }
+
+    private static class Name {
+        private final String name;
+        private final String key;
+        private int recipeCount;
+
+        private Name(String name, String normalizedName) {
+            this.name = name;
+            // rows written by a migration may differ from IngredientName.normalize
+            this.key = IngredientName.normalize(normalizedName);
+        }
+
+        private Suggestion toSuggestion() {
+            return new Suggestion(name, recipeCount);
+        }
+    }
+
+    private static class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private final char key;
+        // sorted by key and replaced on every change, as are terminal and top
+        private volatile Node[] children = NO_CHILDREN;
+        private volatile Suggestion terminal;
+        private volatile List<Suggestion> top = List.of();
+
+        private Node(char key) {
+            this.key = key;
+        }
+
+        private Node child(char key) {
+            Node[] nodes = children;
+            int index = indexOf(nodes, key);
+            return index < 0 ? null : nodes[index];
+        }
+
+        private Node addChild(char key) {
+            Node[] nodes = children;
+            int index = indexOf(nodes, key);
+            if (index >= 0) {
+                return nodes[index];
+            }
+            int insertAt = -index - 1;
+            Node child = new Node(key);
+            Node[] copy = new Node[nodes.length + 1];
+            System.arraycopy(nodes, 0, copy, 0, insertAt);
+            copy[insertAt] = child;
+            System.arraycopy(nodes, insertAt, copy, insertAt + 1, nodes.length - insertAt);
+            children = copy;
+            return child;
+        }
+
+        private void refreshTop() {
+            List<Suggestion> candidates = new ArrayList<>();
+            if (terminal != null) {
+                candidates.add(terminal);
+            }
+            for (Node child : children) {
+                candidates.addAll(child.top);
+            }
+            candidates.sort(RANKING);
+            top = List.copyOf(candidates.subList(0, Math.min(MAX_LIMIT, candidates.size())));
+        }
+
+        private void clear() {
+            children = NO_CHILDREN;
+            terminal = null;
+            top = List.of();
+        }
+
+        private static int indexOf(Node[] nodes, char key) {
+            int low = 0;
+            int high = nodes.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (nodes[middle].key < key) {
+                    low = middle + 1;
+                } else if (nodes[middle].key > key) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+
+    public static class Suggestion {
+        private final String ingredientName;
+        private final int recipeCount;
+
+        public Suggestion(String ingredientName, int recipeCount) {
+            this.ingredientName = ingredientName;
+            this.recipeCount = recipeCount;
+        }
+
+        public String getIngredientName() {
+            return ingredientName;
+        }
+
+        public int getRecipeCount() {
+            return recipeCount;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package github.ikhvjs.recipes.index;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Ranks recipes for POST /recipes:match from the ingredient ids in RecipeIngredientIds.
+ * A pantry becomes a bitset over the dictionary ids and every recipe is scored against it
+ * in parallel, counting the ingredients the pantry lacks.
+ */
+@Component
+public class PantryIndex {
+
+    private static final Comparator<Match> RANKING = Comparator
+            .comparingInt(Match::getMissing)
+            .thenComparing(Match::getRecipeId);
+
+    private final RecipeIngredientIds recipeIngredientIds;
+    private final boolean enabled;
+
+    public PantryIndex(RecipeIngredientIds recipeIngredientIds,
+                       @Value("${recipes.pantry-index.enabled:false}") boolean enabled) {
+        this.recipeIngredientIds = recipeIngredientIds;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The recipes using at least one of the pantry ingredients and lacking at most
+     * {@code maxMissing} others, those lacking the fewest first.
+     */
+    public List<Match> match(Collection<Integer> pantryIds, int maxMissing, int limit) {
+        if (!enabled || pantryIds.isEmpty()) {
+            return List.of();
+        }
+        BitSet pantry = new BitSet();
+        pantryIds.forEach(pantry::set);
+
+        return recipeIngredientIds.entries().parallelStream()
+                .map(entry -> score(entry.getKey(), entry.getValue(), pantry, maxMissing))
+                .filter(Objects::nonNull)
+                .sorted(RANKING)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    // null if the recipe uses none of the pantry or lacks more than maxMissing ingredients
+    private static Match score(Long recipeId, int[] ingredientIds, BitSet pantry, int maxMissing) {
+        int missing = 0;
+        for (int ingredientId : ingredientIds) {
+            if (!pantry.get(ingredientId) && ++missing > maxMissing) {
+                return null;
+            }
+        }
+        return missing == ingredientIds.length ? null : new Match(recipeId, missing);
+    }
+
+    public static class Match {
+        private final Long recipeId;
+        private final int missing;
+
+        public Match(Long recipeId, int missing) {
+            this.recipeId = recipeId;
+            this.missing = missing;
+        }
+
+        public Long getRecipeId() {
+            return recipeId;
+        }
+
+        public int getMissing() {
+            return missing;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package github.ikhvjs.recipes.index;
+
+import github.ikhvjs.recipes.model.IngredientName;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The ingredient dictionary ids of every recipe, sorted and distinct, read by PantryIndex,
+ * SimilarityIndex and IngredientSuggestIndex and written by RecipeIngredientIndexes only.
+ * Arrays are replaced, never changed, so readers need no lock.
+ */
+@Component
+public class RecipeIngredientIds {
+
+    private final ConcurrentMap<Long, int[]> ingredientIdsByRecipeId = new ConcurrentHashMap<>();
+
+    // null if the recipe has no ingredients
+    public int[] get(Long recipeId) {
+        return ingredientIdsByRecipeId.get(recipeId);
+    }
+
+    public Set<Map.Entry<Long, int[]>> entries() {
+        return Collections.unmodifiableMap(ingredientIdsByRecipeId).entrySet();
+    }
+
+    public int size() {
+        return ingredientIdsByRecipeId.size();
+    }
+
+    // the ids the recipe had before, null if none
+    int[] replace(Long recipeId, int[] ingredientIds) {
+        return ingredientIds.length == 0
+                ? ingredientIdsByRecipeId.remove(recipeId)
+                : ingredientIdsByRecipeId.put(recipeId, ingredientIds);
+    }
+
+    void clear() {
+        ingredientIdsByRecipeId.clear();
+    }
+
+    static int[] toSortedArray(Collection<IngredientName> entries) {
+        return entries.stream().mapToInt(IngredientName::getId).sorted().distinct().toArray();
+    }
+}
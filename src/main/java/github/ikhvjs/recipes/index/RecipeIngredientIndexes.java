@@ -0,0 +1,130 @@
+package github.ikhvjs.recipes.index;
+
+import github.ikhvjs.recipes.model.Ingredient;
+import github.ikhvjs.recipes.model.IngredientName;
+import github.ikhvjs.recipes.repository.IngredientRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the in-memory ingredient indexes in step with the writes to the ingredients of a
+ * recipe. A write reads the IngredientName entries of the recipe at most once, under a lock of
+ * that recipe only, and hands them to every index; PantryIndex, SimilarityIndex and
+ * IngredientSuggestIndex share the ids kept in RecipeIngredientIds.
+ * <p>
+ * The indexes only see writes made through this instance, so they are disabled by default
+ * and meant for single-instance deployments.
+ */
+@Component
+public class RecipeIngredientIndexes {
+    private static final Logger logger = LogManager.getLogger(RecipeIngredientIndexes.class);
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final IngredientRepository ingredientRepository;
+    private final RecipeIngredientIds recipeIngredientIds;
+    private final IngredientIndex ingredientIndex;
+    private final PantryIndex pantryIndex;
+    private final SimilarityIndex similarityIndex;
+    private final IngredientSuggestIndex ingredientSuggestIndex;
+    // a recipe's read and replace happen under its stripe, so the snapshot read last is applied last
+    private final Object[] recipeLocks = new Object[LOCK_STRIPES];
+
+    public RecipeIngredientIndexes(IngredientRepository ingredientRepository, RecipeIngredientIds recipeIngredientIds,
+                                   IngredientIndex ingredientIndex, PantryIndex pantryIndex,
+                                   SimilarityIndex similarityIndex, IngredientSuggestIndex ingredientSuggestIndex) {
+        this.ingredientRepository = ingredientRepository;
+        this.recipeIngredientIds = recipeIngredientIds;
+        this.ingredientIndex = ingredientIndex;
+        this.pantryIndex = pantryIndex;
+        this.similarityIndex = similarityIndex;
+        this.ingredientSuggestIndex = ingredientSuggestIndex;
+        Arrays.setAll(recipeLocks, stripe -> new Object());
+    }
+
+    // IngredientIndex loads its names on its own, it is keyed by name instead of id
+    @PostConstruct
+    public void rebuild() {
+        if (!idsEnabled()) {
+            return;
+        }
+        Map<Long, List<IngredientName>> entriesByRecipeId = new HashMap<>();
+        for (Object[] row : ingredientRepository.findAllRecipeIdAndIngredientNameEntry()) {
+            entriesByRecipeId.computeIfAbsent((Long) row[0], key -> new ArrayList<>()).add((IngredientName) row[1]);
+        }
+
+        Map<Integer, IngredientName> entriesById = new HashMap<>();
+        synchronized (this) {
+            recipeIngredientIds.clear();
+            entriesByRecipeId.forEach((recipeId, entries) -> {
+                entries.forEach(entry -> entriesById.putIfAbsent(entry.getId(), entry));
+                recipeIngredientIds.replace(recipeId, RecipeIngredientIds.toSortedArray(entries));
+            });
+            similarityIndex.rebuild();
+            ingredientSuggestIndex.rebuild(entriesById.values());
+        }
+        logger.info("Indexed the ingredients of {} recipes", recipeIngredientIds.size());
+    }
+
+    public void put(Long recipeId, List<Ingredient> ingredients) {
+        List<Ingredient> recipeIngredients = ingredients == null ? List.of() : ingredients;
+        synchronized (lockOf(recipeId)) {
+            ingredientIndex.put(recipeId, recipeIngredients);
+            if (idsEnabled()) {
+                replace(recipeId, recipeIngredients.stream()
+                        .map(Ingredient::getName)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList()));
+            }
+        }
+    }
+
+    // after a write to one ingredient, which does not tell what the recipe had before; only writes
+    // to recipes of the same stripe wait for the query
+    public void reindex(Long recipeId) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (lockOf(recipeId)) {
+            List<IngredientName> entries = ingredientRepository.findIngredientNameEntriesByRecipeId(recipeId);
+            ingredientIndex.reindex(recipeId, entries);
+            if (idsEnabled()) {
+                replace(recipeId, entries);
+            }
+        }
+    }
+
+    public void remove(Long recipeId) {
+        synchronized (lockOf(recipeId)) {
+            ingredientIndex.remove(recipeId);
+            if (idsEnabled()) {
+                replace(recipeId, List.of());
+            }
+        }
+    }
+
+    // one writer at a time, so every index sees the ids a recipe had before in the same order
+    private synchronized void replace(Long recipeId, List<IngredientName> entries) {
+        int[] ingredientIds = RecipeIngredientIds.toSortedArray(entries);
+        int[] previousIds = recipeIngredientIds.replace(recipeId, ingredientIds);
+        similarityIndex.replace(recipeId, previousIds, ingredientIds);
+        ingredientSuggestIndex.replace(previousIds, ingredientIds, entries);
+    }
+
+    public boolean isEnabled() {
+        return ingredientIndex.isEnabled() || idsEnabled();
+    }
+
+    private Object lockOf(Long recipeId) {
+        return recipeLocks[Math.floorMod(recipeId.hashCode(), LOCK_STRIPES)];
+    }
+
+    private boolean idsEnabled() {
+        return pantryIndex.isEnabled() || similarityIndex.isEnabled() || ingredientSuggestIndex.isEnabled();
+    }
+}
@@ -0,0 +1,123 @@
+package github.ikhvjs.recipes.index;
+
+import github.ikhvjs.recipes.repository.RecipeRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-process set of the recipe names in use, so UniqueRecipeValidator only asks the
+ * database about names that might be taken, and concurrent writes of the same name are
+ * told apart before the unique key on recipe_name fails one of them.
+ * <p>
+ * Like IngredientIndex it only sees writes made through this instance, so it is disabled
+ * by default. A name the registry holds is still confirmed by the database.
+ */
+@Component
+public class RecipeNameRegistry {
+    private static final Logger logger = LogManager.getLogger(RecipeNameRegistry.class);
+
+    // owner of a name claimed by a create whose recipe has no id yet
+    private static final Long PENDING = -1L;
+
+    private final RecipeRepository recipeRepository;
+    private final boolean enabled;
+
+    private final ConcurrentMap<String, Long> idsByName = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, String> namesById = new ConcurrentHashMap<>();
+
+    public RecipeNameRegistry(RecipeRepository recipeRepository,
+                              @Value("${recipes.recipe-name-registry.enabled:false}") boolean enabled) {
+        this.recipeRepository = recipeRepository;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        List<Object[]> rows = recipeRepository.findAllIdAndRecipeName();
+
+        idsByName.clear();
+        namesById.clear();
+        for (Object[] row : rows) {
+            put((Long) row[0], (String) row[1]);
+        }
+        logger.info("Registered {} recipe names", idsByName.size());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * False only if no recipe written through this instance uses the name, true if the
+     * database has to be asked.
+     */
+    public boolean mightContain(String recipeName) {
+        if (!enabled || recipeName == null) {
+            return true;
+        }
+        return idsByName.containsKey(normalize(recipeName));
+    }
+
+    /**
+     * Claims the name for the recipe with the id, or for a new recipe if the id is null.
+     * Returns false if another recipe uses or is claiming it. A successful claim must be
+     * followed by {@link #put} or {@link #release}.
+     */
+    public boolean reserve(Long recipeId, String recipeName) {
+        if (!enabled || recipeName == null) {
+            return true;
+        }
+        Long owner = idsByName.putIfAbsent(normalize(recipeName), PENDING);
+        return owner == null || owner.equals(recipeId);
+    }
+
+    // gives up a claim whose write failed
+    public void release(String recipeName) {
+        if (!enabled || recipeName == null) {
+            return;
+        }
+        idsByName.remove(normalize(recipeName), PENDING);
+    }
+
+    public void put(Long recipeId, String recipeName) {
+        if (!enabled || recipeName == null) {
+            return;
+        }
+        String name = normalize(recipeName);
+        idsByName.put(name, recipeId);
+        String previousName = namesById.put(recipeId, name);
+        if (previousName != null && !previousName.equals(name)) {
+            idsByName.remove(previousName, recipeId);
+        }
+    }
+
+    public void remove(Long recipeId) {
+        if (!enabled) {
+            return;
+        }
+        String name = namesById.remove(recipeId);
+        if (name != null) {
+            idsByName.remove(name, recipeId);
+        }
+    }
+
+    // mirrors the accent and case insensitive utf8mb4_0900_ai_ci collation of recipe_name; it is a
+    // NO PAD collation, so unlike ingredient names whitespace stays significant
+    static String normalize(String recipeName) {
+        return Normalizer.normalize(recipeName, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+    }
+}
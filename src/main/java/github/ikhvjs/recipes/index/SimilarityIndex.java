@@ -0,0 +1,182 @@
+package github.ikhvjs.recipes.index;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * MinHash signatures of the ingredient ids in RecipeIngredientIds, for
+ * GET /recipes/{id}/similar. Signatures are split into bands and recipes sharing a band
+ * share a bucket, so the candidates of a recipe are read from its buckets instead of
+ * comparing it with every other recipe. Candidates are then ranked by their exact
+ * Jaccard similarity.
+ * <p>
+ * With 16 bands of 4 rows, recipes with a similarity of 0.5 share a bucket with a
+ * probability of 0.64, at 0.8 of 0.9998. Recipes made only of the most common
+ * ingredients crowd the same buckets, so at most {@code maxBucketCandidates} recipes are
+ * read from each bucket.
+ */
+@Component
+public class SimilarityIndex {
+
+    private static final int BANDS = 16;
+    private static final int ROWS = 4;
+    // hashes are (a * id + b) mod a Mersenne prime above the largest dictionary id
+    private static final long PRIME = (1L << 31) - 1;
+    private static final long[] A = new long[BANDS * ROWS];
+    private static final long[] B = new long[BANDS * ROWS];
+
+    static {
+        // fixed, so signatures do not change between restarts
+        SplittableRandom random = new SplittableRandom(0x5eed);
+        for (int i = 0; i < A.length; i++) {
+            A[i] = random.nextLong(1, PRIME);
+            B[i] = random.nextLong(0, PRIME);
+        }
+    }
+
+    private static final Comparator<Similar> RANKING = Comparator
+            .comparingDouble(Similar::getSimilarity).reversed()
+            .thenComparing(Similar::getRecipeId);
+
+    private final RecipeIngredientIds recipeIngredientIds;
+    private final boolean enabled;
+    private final int maxBucketCandidates;
+
+    // band number in the high 32 bits, hash of the band's rows in the low 32 bits
+    private final ConcurrentMap<Long, Set<Long>> recipeIdsByBucket = new ConcurrentHashMap<>();
+
+    public SimilarityIndex(RecipeIngredientIds recipeIngredientIds,
+                           @Value("${recipes.similarity-index.enabled:false}") boolean enabled,
+                           @Value("${recipes.similarity-index.max-bucket-candidates:1000}") int maxBucketCandidates) {
+        this.recipeIngredientIds = recipeIngredientIds;
+        this.enabled = enabled;
+        this.maxBucketCandidates = maxBucketCandidates;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The recipes sharing a bucket with the recipe, most similar first, or none if the
+     * index is disabled or the recipe has no ingredients.
+     */
+    public List<Similar> findSimilar(Long recipeId, int limit) {
+        int[] ingredientIds = enabled ? recipeIngredientIds.get(recipeId) : null;
+        if (ingredientIds == null) {
+            return List.of();
+        }
+        Set<Long> candidates = new HashSet<>();
+        for (long bucket : buckets(ingredientIds)) {
+            int read = 0;
+            for (Iterator<Long> recipeIds = recipeIdsByBucket.getOrDefault(bucket, Set.of()).iterator();
+                 recipeIds.hasNext() && read < maxBucketCandidates; read++) {
+                candidates.add(recipeIds.next());
+            }
+        }
+        candidates.remove(recipeId);
+
+        List<Similar> similar = new ArrayList<>(candidates.size());
+        for (Long candidateId : candidates) {
+            int[] candidateIds = recipeIngredientIds.get(candidateId);
+            if (candidateIds != null) {
+                similar.add(new Similar(candidateId, jaccard(ingredientIds, candidateIds)));
+            }
+        }
+        return similar.stream()
+                .sorted(RANKING)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        recipeIdsByBucket.clear();
+        for (Map.Entry<Long, int[]> entry : recipeIngredientIds.entries()) {
+            addToBuckets(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // previousIds null or ingredientIds empty if the recipe had or has no ingredients
+    synchronized void replace(Long recipeId, int[] previousIds, int[] ingredientIds) {
+        if (!enabled) {
+            return;
+        }
+        if (previousIds != null) {
+            for (long bucket : buckets(previousIds)) {
+                recipeIdsByBucket.computeIfPresent(bucket, (key, recipeIds) -> {
+                    recipeIds.remove(recipeId);
+                    return recipeIds.isEmpty() ? null : recipeIds;
+                });
+            }
+        }
+        if (ingredientIds.length > 0) {
+            addToBuckets(recipeId, ingredientIds);
+        }
+    }
+
+    private void addToBuckets(Long recipeId, int[] ingredientIds) {
+        for (long bucket : buckets(ingredientIds)) {
+            recipeIdsByBucket.computeIfAbsent(bucket, key -> ConcurrentHashMap.newKeySet()).add(recipeId);
+        }
+    }
+
+    // both arrays sorted and distinct
+    static double jaccard(int[] left, int[] right) {
+        int shared = 0;
+        for (int i = 0, j = 0; i < left.length && j < right.length; ) {
+            if (left[i] == right[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (left[i] < right[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) shared / (left.length + right.length - shared);
+    }
+
+    private static long[] buckets(int[] ingredientIds) {
+        long[] signature = new long[BANDS * ROWS];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (int ingredientId : ingredientIds) {
+            for (int i = 0; i < signature.length; i++) {
+                signature[i] = Math.min(signature[i], (A[i] * ingredientId + B[i]) % PRIME);
+            }
+        }
+
+        long[] buckets = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            int hash = Arrays.hashCode(Arrays.copyOfRange(signature, band * ROWS, (band + 1) * ROWS));
+            buckets[band] = ((long) band << 32) | (hash & 0xffffffffL);
+        }
+        return buckets;
+    }
+
+    public static class Similar {
+        private final Long recipeId;
+        private final double similarity;
+
+        public Similar(Long recipeId, double similarity) {
+            this.recipeId = recipeId;
+            this.similarity = similarity;
+        }
+
+        public Long getRecipeId() {
+            return recipeId;
+        }
+
+        public double getSimilarity() {
+            return similarity;
+        }
+    }
+}
@@ -1,29 +1,51 @@
 package github.ikhvjs.recipes.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Size;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "ingredients")
 @Table(name = "ingredients",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"recipe_id", "ingredient_name"}))
+        uniqueConstraints = @UniqueConstraint(columnNames = {"recipe_id", "ingredient_name_id"}))
 public class Ingredient {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "ingredient_id")
+    @TableGenerator(name = "ingredient_id", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "ingredients", allocationSize = 50)
     @Column(name="id")
     private Long id;
 
+    // a name set by a client, until IngredientNameService resolves it to a dictionary entry;
+    // not persistent, so a query flushing the ingredient before that sees no change
     @NotEmpty
     @Size(max = 100, message = "size must be between 1 and 100")
-    @Column(name="ingredient_name")
+    @Transient
     private String ingredientName;
 
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.EAGER, optional = false)
+    @JoinColumn(name = "ingredient_name_id", nullable = false)
+    private IngredientName name;
+
     @JsonBackReference
     @ManyToOne
     private Recipe recipe;
 
+    // optimistic lock only, clients send the recipe's ETag in If-Match
+    @JsonIgnore
+    @Version
+    @ColumnDefault("0")
+    @Column(name="version", nullable = false)
+    private Long version;
+
 
     public Ingredient() {
     }
@@ -45,13 +67,29 @@ public class Ingredient {
     }
 
     public String getIngredientName() {
-        return ingredientName;
+        if (ingredientName != null || name == null) {
+            return ingredientName;
+        }
+        return name.getName();
     }
 
     public void setIngredientName(String ingredientName) {
         this.ingredientName = ingredientName;
     }
 
+    public boolean hasUnresolvedName() {
+        return ingredientName != null;
+    }
+
+    public IngredientName getName() {
+        return name;
+    }
+
+    public void setName(IngredientName name) {
+        this.name = name;
+        this.ingredientName = null;
+    }
+
     public Recipe getRecipe() {
         return recipe;
     }
@@ -59,4 +97,12 @@ public class Ingredient {
     public void setRecipe(Recipe recipe) {
         this.recipe = recipe;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
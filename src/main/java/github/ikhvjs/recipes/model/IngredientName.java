@@ -0,0 +1,65 @@
+package github.ikhvjs.recipes.model;
+
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * One row per distinct ingredient, so that an ingredient of a recipe is a pair of integer ids.
+ * Names differing only in case, accents or spacing share an entry, which keeps the spelling
+ * it was first created with. Entries are never updated or deleted.
+ */
+@Entity
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "ingredient-names")
+@BatchSize(size = 100)
+@Table(name = "ingredient_names",
+        uniqueConstraints = @UniqueConstraint(name = "UK_ingredient_names_normalized_name", columnNames = "normalized_name"))
+public class IngredientName {
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "ingredient_name_id")
+    @TableGenerator(name = "ingredient_name_id", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "ingredient_names", allocationSize = 50)
+    @Column(name="id")
+    private Integer id;
+
+    @Column(name="name", length = 100, nullable = false)
+    private String name;
+
+    @Column(name="normalized_name", length = 100, nullable = false)
+    private String normalizedName;
+
+    public IngredientName() {
+    }
+
+    public IngredientName(String name) {
+        this.name = name.trim();
+        this.normalizedName = normalize(name);
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getNormalizedName() {
+        return normalizedName;
+    }
+
+    // case-folded without accents like the utf8mb4_0900_ai_ci collation, with whitespace collapsed
+    public static String normalize(String name) {
+        return Normalizer.normalize(name.trim(), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replaceAll("\\s+", " ")
+                .toLowerCase(Locale.ROOT);
+    }
+}
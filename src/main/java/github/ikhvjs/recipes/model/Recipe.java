@@ -1,7 +1,11 @@
 package github.ikhvjs.recipes.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import github.ikhvjs.recipes.annotation.UniqueRecipeName;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.validator.constraints.Range;
 
@@ -14,16 +18,21 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "recipes")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "recipes")
+@Table(name = "recipes",
+        indexes = @Index(name = "IDX_recipes_modified_time_id", columnList = "modified_time, id"))
 public class Recipe {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "recipe_id")
+    @TableGenerator(name = "recipe_id", table = "id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "recipes", allocationSize = 50)
     @Column(name="id")
     private Long id;
     @NotEmpty
     @Size(max = 100, message = "size must be between 1 and 100")
-    @UniqueRecipeName
+    @UniqueRecipeName(groups = UniqueRecipeName.Group.class)
     @Column(name="recipe_name", unique = true)
     private String recipeName;
 
@@ -49,6 +58,7 @@ public class Recipe {
     }
 
     @JsonManagedReference
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "recipe-ingredients")
     @OneToMany(mappedBy = "recipe", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
     private List<Ingredient> ingredients = new ArrayList<>();
 
@@ -56,6 +66,13 @@ public class Recipe {
     @UpdateTimestamp
     private LocalDateTime modifiedTime;
 
+    // optimistic lock only, clients send the recipe's ETag in If-Match
+    @JsonIgnore
+    @Version
+    @ColumnDefault("0")
+    @Column(name="version", nullable = false)
+    private Long version;
+
     public Recipe(Long id, String recipeName, Boolean isVegetarian, Short numOfServings, String instructions, List<Ingredient> ingredients, LocalDateTime modifiedTime) {
         this.id = id;
         this.recipeName = recipeName;
@@ -134,4 +151,12 @@ public class Recipe {
     public void setModifiedTime(LocalDateTime modifiedTime) {
         this.modifiedTime = modifiedTime;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,16 @@
+package github.ikhvjs.recipes.repository;
+
+import github.ikhvjs.recipes.model.IngredientName;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface IngredientNameRepository extends JpaRepository<IngredientName, Integer> {
+    List<IngredientName> findByNormalizedNameIn(Collection<String> normalizedNames);
+
+    Optional<IngredientName> findByNormalizedName(String normalizedName);
+}
@@ -1,16 +1,41 @@
 package github.ikhvjs.recipes.repository;
 
 import github.ikhvjs.recipes.model.Ingredient;
+import github.ikhvjs.recipes.model.IngredientName;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
-import javax.transaction.Transactional;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface IngredientRepository extends JpaRepository<Ingredient,Long> {
+    @Query("select i from Ingredient i join fetch i.name where i.recipe.id = :recipeId order by i.id")
     List<Ingredient> findByRecipeId(Long recipeId);
 
-    @Transactional
-    void deleteByRecipeId(Long recipeId);
+    @Query("select i.recipe.id, n.name from Ingredient i join i.name n")
+    List<Object[]> findAllRecipeIdAndIngredientName();
+
+    @Query("select n from Ingredient i join i.name n where i.recipe.id = :recipeId")
+    List<IngredientName> findIngredientNameEntriesByRecipeId(Long recipeId);
+
+    // rows using the same name share one IngredientName instance of the persistence context
+    @Query("select i.recipe.id, n from Ingredient i join i.name n")
+    List<Object[]> findAllRecipeIdAndIngredientNameEntry();
+
+    @Query("select i.recipe.id from Ingredient i where i.id = :id")
+    Optional<Long> findRecipeIdById(Long id);
+
+    // writes without reading the ingredient first and moves its version itself, see RecipeRepository.updateById
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Ingredient i set i.name = :name, i.version = i.version + 1 where i.id = :id")
+    int updateNameById(Long id, IngredientName name);
+
+    // one DELETE ... WHERE recipe_id IN (...) instead of a select and a delete per ingredient
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Ingredient i where i.recipe.id in :recipeIds")
+    int deleteByRecipeIdIn(Collection<Long> recipeIds);
 }
@@ -3,11 +3,60 @@ package github.ikhvjs.recipes.repository;
 import github.ikhvjs.recipes.model.Recipe;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface RecipeRepository extends JpaRepository<Recipe,Long>, JpaSpecificationExecutor<Recipe> {
+public interface RecipeRepository extends JpaRepository<Recipe,Long>, JpaSpecificationExecutor<Recipe>, RecipeRepositoryCustom {
     boolean existsByRecipeName(String recipeName);
+
+    // at most one row of version and modifiedTime
+    @Query("select r.version, r.modifiedTime from Recipe r where r.id = :id")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    List<Object[]> findVersionAndModifiedTimeById(Long id);
+
+    @Query("select r.id, r.recipeName from Recipe r")
+    List<Object[]> findAllIdAndRecipeName();
+
+    @Query("select r.recipeName from Recipe r where r.recipeName in :recipeNames")
+    List<String> findExistingRecipeNames(Collection<String> recipeNames);
+
+    // writes without reading the recipe first; a JPQL update bypasses @Version and @UpdateTimestamp,
+    // so it moves both itself. Hibernate evicts the Recipe region of the second-level cache after it
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Recipe r set r.recipeName = :recipeName, r.isVegetarian = :isVegetarian, " +
+            "r.numOfServings = :numOfServings, r.instructions = :instructions, " +
+            "r.modifiedTime = :modifiedTime, r.version = r.version + 1 where r.id = :id")
+    int updateById(Long id, String recipeName, Boolean isVegetarian, Short numOfServings, String instructions,
+                   LocalDateTime modifiedTime);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Recipe r set r.recipeName = :recipeName, r.isVegetarian = :isVegetarian, " +
+            "r.numOfServings = :numOfServings, r.instructions = :instructions, " +
+            "r.modifiedTime = :modifiedTime, r.version = r.version + 1 where r.id = :id and r.version in :versions")
+    int updateByIdAndVersionIn(Long id, Collection<Long> versions, String recipeName, Boolean isVegetarian,
+                               Short numOfServings, String instructions, LocalDateTime modifiedTime);
+
+    // moves the version and modifiedTime of the recipe of an ingredient, which are those of its ingredients too
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Recipe r set r.modifiedTime = :modifiedTime, r.version = r.version + 1 " +
+            "where r.id = (select i.recipe.id from Ingredient i where i.id = :ingredientId)")
+    int touchByIngredientId(Long ingredientId, LocalDateTime modifiedTime);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Recipe r set r.modifiedTime = :modifiedTime, r.version = r.version + 1 " +
+            "where r.id = (select i.recipe.id from Ingredient i where i.id = :ingredientId) and r.version in :versions")
+    int touchByIngredientIdAndVersionIn(Long ingredientId, Collection<Long> versions, LocalDateTime modifiedTime);
+
+    // does not cascade, the recipes' ingredients have to be deleted first
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Recipe r where r.id in :ids")
+    int deleteByIdIn(Collection<Long> ids);
 }
@@ -0,0 +1,27 @@
+package github.ikhvjs.recipes.repository;
+
+import github.ikhvjs.recipes.model.Recipe;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface RecipeRepositoryCustom {
+    // takes precedence over JpaSpecificationExecutor.findAll(Specification)
+    List<Recipe> findAll(Specification<Recipe> specification);
+
+    List<Recipe> findAll(Specification<Recipe> specification, Sort sort, int limit);
+
+    // [isVegetarian, numOfServings, count] of the matching recipes, one grouped statement
+    List<Object[]> countByIsVegetarianAndNumOfServings(Specification<Recipe> specification);
+
+    // [ingredient name, count] of the ingredients used by most of the matching recipes, one grouped statement
+    List<Object[]> countIngredientNames(Specification<Recipe> specification, int limit);
+
+    // in the order of the ids, leaving out the ids of deleted recipes
+    List<Recipe> findAllWithIngredientsById(List<Long> ids);
+
+    // must run inside a transaction, the recipes passed to action are not managed
+    void forEachWithIngredients(Consumer<Recipe> action);
+}
@@ -0,0 +1,182 @@
+package github.ikhvjs.recipes.repository;
+
+import github.ikhvjs.recipes.model.Ingredient;
+import github.ikhvjs.recipes.model.IngredientName;
+import github.ikhvjs.recipes.model.Recipe;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Loads recipes in two phases: the matching ids first, then the recipes with their
+ * ingredients fetch-joined by id. This keeps a search at a fixed number of statements
+ * instead of one ingredient select per recipe.
+ */
+public class RecipeRepositoryCustomImpl implements RecipeRepositoryCustom {
+    private static final int FETCH_CHUNK_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Integer.MIN_VALUE makes MySQL Connector/J stream the result set row by row
+    @Value("${recipes.export.fetch-size:" + Integer.MIN_VALUE + "}")
+    private int exportFetchSize;
+
+    @Override
+    public List<Recipe> findAll(Specification<Recipe> specification) {
+        return findAllById(findIds(specification, Sort.unsorted(), null));
+    }
+
+    // Unlike findAll(Specification, Pageable), this never issues a count query
+    @Override
+    public List<Recipe> findAll(Specification<Recipe> specification, Sort sort, int limit) {
+        return findAllById(findIds(specification, sort, limit));
+    }
+
+    @Override
+    public List<Object[]> countByIsVegetarianAndNumOfServings(Specification<Recipe> specification) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = criteriaBuilder.createQuery(Object[].class);
+        Root<Recipe> root = query.from(Recipe.class);
+
+        where(query, specification, root, criteriaBuilder);
+        query.multiselect(root.get("isVegetarian"), root.get("numOfServings"), criteriaBuilder.count(root))
+                .groupBy(root.get("isVegetarian"), root.get("numOfServings"));
+
+        return entityManager.createQuery(query)
+                .setHint(QueryHints.HINT_CACHEABLE, true)
+                .getResultList();
+    }
+
+    // a recipe uses a dictionary entry at most once, so counting the joined rows counts recipes
+    @Override
+    public List<Object[]> countIngredientNames(Specification<Recipe> specification, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = criteriaBuilder.createQuery(Object[].class);
+        Root<Recipe> root = query.from(Recipe.class);
+        Join<Ingredient, IngredientName> name = root.join("ingredients").join("name");
+
+        where(query, specification, root, criteriaBuilder);
+        Expression<Long> count = criteriaBuilder.count(root);
+        query.multiselect(name.get("name"), count)
+                .groupBy(name.get("id"), name.get("name"))
+                .orderBy(criteriaBuilder.desc(count), criteriaBuilder.asc(name.get("name")));
+
+        return entityManager.createQuery(query)
+                .setHint(QueryHints.HINT_CACHEABLE, true)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<Recipe> findAllWithIngredientsById(List<Long> ids) {
+        return findAllById(ids);
+    }
+
+    // Reads flat recipe and ingredient rows through a forward-only cursor, so neither the
+    // result set nor the persistence context grows with the catalog
+    @Override
+    public void forEachWithIngredients(Consumer<Recipe> action) {
+        Session session = entityManager.unwrap(Session.class);
+
+        try (ScrollableResults rows = session.createQuery(
+                        "select r.id, r.recipeName, r.isVegetarian, r.numOfServings, r.instructions, r.modifiedTime, " +
+                                "i.id, n.name " +
+                                "from Recipe r left join r.ingredients i left join i.name n order by r.id, i.id", Object[].class)
+                .setReadOnly(true)
+                .setFetchSize(exportFetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            Recipe recipe = null;
+
+            while (rows.next()) {
+                Long id = (Long) rows.get(0);
+                if (recipe == null || !recipe.getId().equals(id)) {
+                    if (recipe != null) {
+                        action.accept(recipe);
+                    }
+                    recipe = new Recipe(id, (String) rows.get(1), (Boolean) rows.get(2), (Short) rows.get(3),
+                            (String) rows.get(4), new ArrayList<>(), (LocalDateTime) rows.get(5));
+                }
+                if (rows.get(6) != null) {
+                    recipe.getIngredients().add(new Ingredient((Long) rows.get(6), (String) rows.get(7)));
+                }
+            }
+            if (recipe != null) {
+                action.accept(recipe);
+            }
+        }
+    }
+
+    private List<Long> findIds(Specification<Recipe> specification, Sort sort, Integer limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<Recipe> root = query.from(Recipe.class);
+
+        where(query, specification, root, criteriaBuilder);
+        query.select(root.get("id")).orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+
+        // cached until the next write to the recipes or ingredients table
+        TypedQuery<Long> typedQuery = entityManager.createQuery(query)
+                .setHint(QueryHints.HINT_CACHEABLE, true);
+        if (limit != null) {
+            typedQuery.setMaxResults(limit);
+        }
+        return typedQuery.getResultList();
+    }
+
+    private static void where(CriteriaQuery<?> query, Specification<Recipe> specification, Root<Recipe> root,
+                              CriteriaBuilder criteriaBuilder) {
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+    }
+
+    private List<Recipe> findAllById(List<Long> ids) {
+        Map<Long, Recipe> recipesById = new HashMap<>(ids.size() * 2);
+
+        for (int from = 0; from < ids.size(); from += FETCH_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + FETCH_CHUNK_SIZE, ids.size()));
+            entityManager.createQuery(
+                            "select distinct r from Recipe r left join fetch r.ingredients i left join fetch i.name where r.id in :ids", Recipe.class)
+                    .setParameter("ids", chunk)
+                    .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                    .setHint(QueryHints.HINT_CACHEABLE, true)
+                    .getResultList()
+                    .forEach(recipe -> recipesById.put(recipe.getId(), recipe));
+        }
+
+        // the fetch query does not keep the order of the id query
+        List<Recipe> recipes = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Recipe recipe = recipesById.get(id);
+            if (recipe != null) {
+                recipes.add(recipe);
+            }
+        }
+        return recipes;
+    }
+}
@@ -0,0 +1,13 @@
+package github.ikhvjs.recipes.service;
+
+import github.ikhvjs.recipes.model.Ingredient;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface IngredientNameService {
+
+    void resolve(Collection<Ingredient> ingredients);
+
+    List<Integer> findIds(Collection<String> ingredientNames);
+}
@@ -0,0 +1,134 @@
+package github.ikhvjs.recipes.service;
+
+import github.ikhvjs.recipes.model.Ingredient;
+import github.ikhvjs.recipes.model.IngredientName;
+import github.ikhvjs.recipes.repository.IngredientNameRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves ingredient names to entries of the ingredient_names dictionary, creating the missing
+ * ones. Entries never change once created, so they are kept in memory by normalized name
+ * without invalidation, also with several instances sharing the database.
+ */
+@Service
+public class IngredientNameServiceImpl implements IngredientNameService {
+    private static final Logger logger = LogManager.getLogger(IngredientNameServiceImpl.class);
+
+    private final IngredientNameRepository ingredientNameRepository;
+    // new entries are committed on their own, so a recipe that fails to save leaves them behind unused
+    private final TransactionTemplate newTransaction;
+
+    private final Map<String, IngredientName> entries = new ConcurrentHashMap<>();
+
+    public IngredientNameServiceImpl(IngredientNameRepository ingredientNameRepository,
+                                     PlatformTransactionManager transactionManager) {
+        this.ingredientNameRepository = ingredientNameRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Links every ingredient that only has a name to its dictionary entry, with one query for
+     * the entries not in memory yet and one batched insert for the new names.
+     */
+    @Override
+    public void resolve(Collection<Ingredient> ingredients) {
+        if (ingredients == null) {
+            return;
+        }
+        // the first spelling of each name in the batch
+        Map<String, String> names = new LinkedHashMap<>();
+        for (Ingredient ingredient : ingredients) {
+            if (ingredient.hasUnresolvedName()) {
+                names.putIfAbsent(IngredientName.normalize(ingredient.getIngredientName()), ingredient.getIngredientName());
+            }
+        }
+        if (names.isEmpty()) {
+            return;
+        }
+
+        Map<String, IngredientName> found = find(names.keySet());
+        List<String> missing = names.entrySet().stream()
+                .filter(name -> !found.containsKey(name.getKey()))
+                .map(Map.Entry::getValue)
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            create(missing).forEach(entry -> found.put(entry.getNormalizedName(), entry));
+        }
+
+        for (Ingredient ingredient : ingredients) {
+            if (ingredient.hasUnresolvedName()) {
+                ingredient.setName(found.get(IngredientName.normalize(ingredient.getIngredientName())));
+            }
+        }
+    }
+
+    /**
+     * Dictionary ids of the names, leaving out names no recipe has ever used.
+     */
+    @Override
+    public List<Integer> findIds(Collection<String> ingredientNames) {
+        Set<String> normalizedNames = ingredientNames.stream()
+                .map(IngredientName::normalize)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        return find(normalizedNames).values().stream()
+                .map(IngredientName::getId)
+                .collect(Collectors.toList());
+    }
+
+    private Map<String, IngredientName> find(Set<String> normalizedNames) {
+        Map<String, IngredientName> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String normalizedName : normalizedNames) {
+            IngredientName entry = entries.get(normalizedName);
+            if (entry == null) {
+                missing.add(normalizedName);
+            } else {
+                found.put(normalizedName, entry);
+            }
+        }
+        if (!missing.isEmpty()) {
+            // rows written by a migration may differ from IngredientName.normalize only in what the collation ignores
+            for (IngredientName entry : ingredientNameRepository.findByNormalizedNameIn(missing)) {
+                found.put(IngredientName.normalize(entry.getNormalizedName()), remember(entry));
+            }
+        }
+        return found;
+    }
+
+    // one batched insert, or one insert per name when a concurrent request created one of them first
+    private List<IngredientName> create(List<String> names) {
+        List<IngredientName> created;
+        try {
+            created = newTransaction.execute(status -> ingredientNameRepository.saveAll(
+                    names.stream().map(IngredientName::new).collect(Collectors.toList())));
+        } catch (DataIntegrityViolationException e) {
+            created = names.stream().map(this::create).collect(Collectors.toList());
+        }
+        logger.debug("Created {} ingredient names", created.size());
+        return created.stream().map(this::remember).collect(Collectors.toList());
+    }
+
+    private IngredientName create(String name) {
+        try {
+            return newTransaction.execute(status -> ingredientNameRepository.saveAndFlush(new IngredientName(name)));
+        } catch (DataIntegrityViolationException e) {
+            return ingredientNameRepository.findByNormalizedName(IngredientName.normalize(name)).orElseThrow(() -> e);
+        }
+    }
+
+    private IngredientName remember(IngredientName entry) {
+        IngredientName existing = entries.putIfAbsent(IngredientName.normalize(entry.getNormalizedName()), entry);
+        return existing == null ? entry : existing;
+    }
+}
@@ -1,7 +1,9 @@
 package github.ikhvjs.recipes.service;
 
+import github.ikhvjs.recipes.index.IngredientSuggestIndex;
 import github.ikhvjs.recipes.model.Ingredient;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,7 +15,9 @@ public interface IngredientService {
 
     List<Ingredient> findByRecipeId(Long id);
 
-    Ingredient update(Ingredient recipe);
+    List<IngredientSuggestIndex.Suggestion> suggest(String prefix, int limit);
+
+    Ingredient update(Long id, Ingredient ingredient, Collection<Long> versions);
 
     void deleteById(Long id);
 
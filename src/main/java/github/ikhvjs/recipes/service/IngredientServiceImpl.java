@@ -1,19 +1,47 @@
 package github.ikhvjs.recipes.service;
 
+import github.ikhvjs.recipes.exception.PreconditionFailedException;
+import github.ikhvjs.recipes.exception.ResourceNotFoundException;
+import github.ikhvjs.recipes.exception.ServiceUnavailableException;
+import github.ikhvjs.recipes.index.IngredientSuggestIndex;
+import github.ikhvjs.recipes.index.RecipeIngredientIndexes;
 import github.ikhvjs.recipes.model.Ingredient;
+import github.ikhvjs.recipes.model.Recipe;
 import github.ikhvjs.recipes.repository.IngredientRepository;
+import github.ikhvjs.recipes.repository.RecipeRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class IngredientServiceImpl implements IngredientService{
 
+    // Recipe.ingredients is the inverse side, so Hibernate does not evict its cached collection
+    // when an ingredient is saved on its own
+    private static final String RECIPE_INGREDIENTS_REGION = Recipe.class.getName() + ".ingredients";
+
     private IngredientRepository ingredientRepository;
+    private RecipeRepository recipeRepository;
+    private RecipeIngredientIndexes recipeIngredientIndexes;
+    private IngredientSuggestIndex ingredientSuggestIndex;
+    private EntityManagerFactory entityManagerFactory;
+    private IngredientNameService ingredientNameService;
 
-    public IngredientServiceImpl(IngredientRepository ingredientRepository) {
+    public IngredientServiceImpl(IngredientRepository ingredientRepository, RecipeRepository recipeRepository,
+                                 RecipeIngredientIndexes recipeIngredientIndexes, EntityManagerFactory entityManagerFactory,
+                                 IngredientNameService ingredientNameService, IngredientSuggestIndex ingredientSuggestIndex) {
         this.ingredientRepository = ingredientRepository;
+        this.recipeRepository = recipeRepository;
+        this.recipeIngredientIndexes = recipeIngredientIndexes;
+        this.entityManagerFactory = entityManagerFactory;
+        this.ingredientNameService = ingredientNameService;
+        this.ingredientSuggestIndex = ingredientSuggestIndex;
     }
 
     @Override
@@ -23,7 +51,24 @@ public class IngredientServiceImpl implements IngredientService{
 
     @Override
     public Ingredient create(Ingredient ingredient) {
-        return ingredientRepository.save(ingredient);
+        if (ingredient.getRecipe() != null) {
+            touch(ingredient.getRecipe());
+        }
+        ingredientNameService.resolve(List.of(ingredient));
+        Ingredient newIngredient = ingredientRepository.save(ingredient);
+        if (newIngredient.getRecipe() != null) {
+            evictRecipeIngredients(newIngredient.getRecipe().getId());
+            recipeIngredientIndexes.reindex(newIngredient.getRecipe().getId());
+        }
+        return newIngredient;
+    }
+
+    @Override
+    public List<IngredientSuggestIndex.Suggestion> suggest(String prefix, int limit) {
+        if (!ingredientSuggestIndex.isEnabled()) {
+            throw new ServiceUnavailableException("Ingredient suggestions need recipes.suggest-index.enabled=true");
+        }
+        return ingredientSuggestIndex.suggest(prefix, limit);
     }
 
     @Override
@@ -31,18 +76,75 @@ public class IngredientServiceImpl implements IngredientService{
         return ingredientRepository.findByRecipeId(id);
     }
 
+    // two UPDATEs and no read before them: the ingredient's name, then the version and modifiedTime of
+    // its recipe, conditional on the versions unless they are null. A mismatch rolls back both
     @Override
-    public Ingredient update(Ingredient recipe) {
-        return ingredientRepository.save(recipe);
+    @Transactional
+    public Ingredient update(Long id, Ingredient ingredient, Collection<Long> versions) {
+        ingredientNameService.resolve(List.of(ingredient));
+        if (ingredientRepository.updateNameById(id, ingredient.getName()) == 0) {
+            throw new ResourceNotFoundException("Not found Ingredient with id = " + id);
+        }
+        if (versions == null) {
+            recipeRepository.touchByIngredientId(id, LocalDateTime.now());
+        } else if (versions.isEmpty() || recipeRepository.touchByIngredientIdAndVersionIn(id, versions, LocalDateTime.now()) == 0) {
+            throw new PreconditionFailedException("Ingredient with id = " + id + " does not match If-Match");
+        }
+
+        // the recipe id is only needed by the in-memory indexes
+        if (recipeIngredientIndexes.isEnabled()) {
+            ingredientRepository.findRecipeIdById(id).ifPresent(recipeId ->
+                    AfterCommit.run(() -> recipeIngredientIndexes.reindex(recipeId)));
+        }
+        ingredient.setId(id);
+        return ingredient;
     }
 
     @Override
+    @Transactional
     public void deleteById(Long id) {
+        // already in the persistence context when the controller looked it up
+        Optional<Ingredient> ingredient = ingredientRepository.findById(id)
+                .filter(existingIngredient -> existingIngredient.getRecipe() != null);
+        ingredient.ifPresent(IngredientServiceImpl::unlinkFromRecipe);
+
         ingredientRepository.deleteById(id);
+
+        ingredient.ifPresent(existingIngredient -> AfterCommit.run(() ->
+                recipeIngredientIndexes.reindex(existingIngredient.getRecipe().getId())));
     }
 
     @Override
+    @Transactional
     public void deleteByRecipeId(Long id) {
-        ingredientRepository.deleteByRecipeId(id);
+        // entity deletes of the cached collection, so only this recipe's ingredients leave the
+        // second-level cache; the deletes are batched like inserts
+        recipeRepository.findById(id)
+                .filter(recipe -> !recipe.getIngredients().isEmpty())
+                .ifPresent(recipe -> {
+                    List<Ingredient> ingredients = new ArrayList<>(recipe.getIngredients());
+                    recipe.getIngredients().clear();
+                    touch(recipe);
+                    ingredientRepository.deleteAll(ingredients);
+                });
+
+        AfterCommit.run(() -> recipeIngredientIndexes.remove(id));
+    }
+
+    // otherwise the cascade on Recipe.ingredients persists the ingredient again on flush, and
+    // changing the collection through its owner also evicts it from the second-level cache
+    private static void unlinkFromRecipe(Ingredient ingredient) {
+        ingredient.getRecipe().getIngredients().remove(ingredient);
+        touch(ingredient.getRecipe());
+    }
+
+    // the recipe's modifiedTime is the version of its ingredients too, so it must move with them;
+    // the recipe is managed by the request's persistence context and flushed with the ingredient
+    private static void touch(Recipe recipe) {
+        recipe.setModifiedTime(LocalDateTime.now());
+    }
+
+    private void evictRecipeIngredients(Long recipeId) {
+        entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class).evictCollectionData(RECIPE_INGREDIENTS_REGION, recipeId);
     }
 }
@@ -0,0 +1,17 @@
+package github.ikhvjs.recipes.service;
+
+import github.ikhvjs.recipes.controller.QueryString;
+import github.ikhvjs.recipes.model.Ingredient;
+import github.ikhvjs.recipes.model.Recipe;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveRecipeService {
+    Mono<Recipe> findById(Long id);
+
+    Flux<Recipe> search(QueryString queryString);
+
+    Mono<Boolean> existsById(Long id);
+
+    Flux<Ingredient> findIngredientsByRecipeId(Long id);
+}
@@ -0,0 +1,281 @@
+package github.ikhvjs.recipes.service;
+
+import github.ikhvjs.recipes.controller.QueryString;
+import github.ikhvjs.recipes.exception.InvalidSearchParamsException;
+import github.ikhvjs.recipes.model.Ingredient;
+import github.ikhvjs.recipes.model.IngredientName;
+import github.ikhvjs.recipes.model.Recipe;
+import github.ikhvjs.recipes.specification.RecipeSpecification;
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking reads over R2DBC for the reactive profile. Searches run as one flat
+ * recipe and ingredient query that is grouped into recipes while the rows arrive, so a
+ * large result is written to the client with backpressure instead of being loaded first.
+ * <p>
+ * Filters mirror RecipeSpecification in SQL, the ingredient index and the second-level
+ * cache of the blocking RecipeService are not used.
+ */
+@Service
+@ConditionalOnProperty(name = "recipes.reactive.enabled", havingValue = "true")
+public class ReactiveRecipeServiceImpl implements ReactiveRecipeService, DisposableBean {
+    private static final Logger logger = LogManager.getLogger(ReactiveRecipeServiceImpl.class);
+
+    private static final String SELECT_RECIPES =
+            "select r.id, r.recipe_name, r.is_vegetarian, r.num_of_servings, r.instructions, r.modified_time, " +
+            "i.id as ingredient_id, n.name as ingredient_name " +
+            "from recipes r left join ingredients i on i.recipe_id = r.id " +
+            "left join ingredient_names n on n.id = i.ingredient_name_id";
+
+    private final ConnectionFactory connectionFactory;
+
+    // owned here instead of being a bean, Boot turns off the DataSource when a ConnectionFactory bean exists
+    public ReactiveRecipeServiceImpl(@Value("${recipes.reactive.url}") String url,
+                                     @Value("${spring.datasource.username}") String username,
+                                     @Value("${spring.datasource.password}") String password) {
+        this.connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build());
+    }
+
+    @Override
+    public void destroy() {
+        if (connectionFactory instanceof Closeable) {
+            Mono.from(((Closeable) connectionFactory).close()).block();
+        }
+    }
+
+    @Override
+    public Mono<Recipe> findById(Long id) {
+        logger.info("Find recipe with id: {}", id);
+        return toRecipes(query(new SqlQuery(SELECT_RECIPES + " where r.id = ? order by i.id", List.of(id)),
+                ReactiveRecipeServiceImpl::toRow))
+                .next();
+    }
+
+    @Override
+    public Flux<Recipe> search(QueryString queryString) {
+        logger.debug("Search recipes with query string {}", queryString);
+        return Mono.fromCallable(() -> toSearchQuery(queryString))
+                .flatMapMany(searchQuery -> toRecipes(query(searchQuery, ReactiveRecipeServiceImpl::toRow)));
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Long id) {
+        return query(new SqlQuery("select 1 from recipes where id = ?", List.of(id)), (row, metadata) -> Boolean.TRUE)
+                .hasElements();
+    }
+
+    @Override
+    public Flux<Ingredient> findIngredientsByRecipeId(Long id) {
+        return query(new SqlQuery("select i.id, n.name as ingredient_name from ingredients i " +
+                        "join ingredient_names n on n.id = i.ingredient_name_id where i.recipe_id = ? order by i.id", List.of(id)),
+                (row, metadata) -> new Ingredient(row.get("id", Long.class), row.get("ingredient_name", String.class)));
+    }
+
+    // the connection goes back to the pool when the rows are consumed, fail or are cancelled
+    private <T> Flux<T> query(SqlQuery sqlQuery, BiFunction<Row, RowMetadata, T> mapping) {
+        return Flux.usingWhen(
+                connectionFactory.create(),
+                connection -> Flux.from(bind(connection.createStatement(sqlQuery.getSql()), sqlQuery.getBindings()).execute())
+                        .flatMap(result -> result.map(mapping)),
+                Connection::close);
+    }
+
+    private static Statement bind(Statement statement, List<Object> bindings) {
+        for (int index = 0; index < bindings.size(); index++) {
+            statement.bind(index, bindings.get(index));
+        }
+        return statement;
+    }
+
+    static SqlQuery toSearchQuery(QueryString queryString) {
+        final List<String> includeIngredients = queryString.getIncludeIngredients();
+        final List<String> excludeIngredients = queryString.getExcludeIngredients();
+
+        List<String> messages = new ArrayList<>();
+        if (includeIngredients != null && excludeIngredients != null) {
+            messages.add("Query String must choose either includeIngredients or excludeIngredients");
+        }
+        // a stream has no pages, the client reads as far as it needs
+        if (queryString.isPaged()) {
+            messages.add("limit : paging is not supported by the reactive search");
+        }
+        if (queryString.getFacets() != null) {
+            messages.add("facets : facets are not supported by the reactive search");
+        }
+        if (!messages.isEmpty()) {
+            throw new InvalidSearchParamsException(messages);
+        }
+
+        StringBuilder sql = new StringBuilder(SELECT_RECIPES).append(" where 1 = 1");
+        List<Object> bindings = new ArrayList<>();
+
+        if (queryString.getIsVegetarian() != null) {
+            sql.append(" and r.is_vegetarian = ?");
+            bindings.add(Boolean.valueOf(queryString.getIsVegetarian()));
+        }
+        if (queryString.getNumOfServings() != null) {
+            sql.append(" and r.num_of_servings = ?");
+            bindings.add(Short.valueOf(queryString.getNumOfServings()));
+        }
+        if (queryString.getInstructionsContains() != null) {
+            appendInstructions(sql, bindings, queryString.getInstructionsContains(), queryString.getInstructionsMatch());
+        }
+        if (includeIngredients != null) {
+            sql.append(" and exists (").append(ingredientSubquery(includeIngredients.size())).append(")");
+            includeIngredients.forEach(name -> bindings.add(IngredientName.normalize(name)));
+        }
+        if (excludeIngredients != null) {
+            sql.append(" and not exists (").append(ingredientSubquery(excludeIngredients.size())).append(")");
+            excludeIngredients.forEach(name -> bindings.add(IngredientName.normalize(name)));
+        }
+        sql.append(" order by r.id, i.id");
+
+        return new SqlQuery(sql.toString(), bindings);
+    }
+
+    private static void appendInstructions(StringBuilder sql, List<Object> bindings, String instructions, String instructionsMatch) {
+        if (instructionsMatch == null) {
+            sql.append(" and r.instructions like ?");
+            bindings.add("%" + instructions + "%");
+            return;
+        }
+        String booleanModeQuery = "term".equals(instructionsMatch)
+                ? RecipeSpecification.toTermsQuery(instructions)
+                : RecipeSpecification.toPhraseQuery(instructions);
+        if (booleanModeQuery.isEmpty()) {
+            sql.append(" and 1 = 0");
+            return;
+        }
+        sql.append(" and match(r.instructions) against (? in boolean mode) > 0");
+        bindings.add(booleanModeQuery);
+    }
+
+    // the names resolve to dictionary ids inside the statement, a blocking lookup has no place here
+    private static String ingredientSubquery(int size) {
+        return "select 1 from ingredients s where s.recipe_id = r.id and s.ingredient_name_id in ("
+                + "select n.id from ingredient_names n where n.normalized_name in ("
+                + String.join(", ", Collections.nCopies(size, "?")) + "))";
+    }
+
+    // consecutive rows of the same recipe become one recipe, the query orders them by recipe id
+    static Flux<Recipe> toRecipes(Flux<RecipeRow> rows) {
+        return rows.bufferUntilChanged(RecipeRow::getId)
+                .map(ReactiveRecipeServiceImpl::toRecipe);
+    }
+
+    private static Recipe toRecipe(List<RecipeRow> rows) {
+        RecipeRow first = rows.get(0);
+        List<Ingredient> ingredients = rows.stream()
+                .filter(row -> row.getIngredientId() != null)
+                .map(row -> new Ingredient(row.getIngredientId(), row.getIngredientName()))
+                .collect(Collectors.toCollection(ArrayList::new));
+        return new Recipe(first.getId(), first.getRecipeName(), first.getIsVegetarian(), first.getNumOfServings(),
+                first.getInstructions(), ingredients, first.getModifiedTime());
+    }
+
+    private static RecipeRow toRow(Row row, RowMetadata metadata) {
+        return new RecipeRow(row.get("id", Long.class), row.get("recipe_name", String.class),
+                row.get("is_vegetarian", Boolean.class), row.get("num_of_servings", Short.class),
+                row.get("instructions", String.class), row.get("modified_time", LocalDateTime.class),
+                row.get("ingredient_id", Long.class), row.get("ingredient_name", String.class));
+    }
+
+    static final class SqlQuery {
+        private final String sql;
+        private final List<Object> bindings;
+
+        SqlQuery(String sql, List<Object> bindings) {
+            this.sql = sql;
+            this.bindings = bindings;
+        }
+
+        String getSql() {
+            return sql;
+        }
+
+        List<Object> getBindings() {
+            return bindings;
+        }
+    }
+
+    static final class RecipeRow {
+        private final Long id;
+        private final String recipeName;
+        private final Boolean isVegetarian;
+        private final Short numOfServings;
+        private final String instructions;
+        private final LocalDateTime modifiedTime;
+        private final Long ingredientId;
+        private final String ingredientName;
+
+        RecipeRow(Long id, String recipeName, Boolean isVegetarian, Short numOfServings, String instructions,
+                  LocalDateTime modifiedTime, Long ingredientId, String ingredientName) {
+            this.id = Objects.requireNonNull(id);
+            this.recipeName = recipeName;
+            this.isVegetarian = isVegetarian;
+            this.numOfServings = numOfServings;
+            this.instructions = instructions;
+            this.modifiedTime = modifiedTime;
+            this.ingredientId = ingredientId;
+            this.ingredientName = ingredientName;
+        }
+
+        Long getId() {
+            return id;
+        }
+
+        String getRecipeName() {
+            return recipeName;
+        }
+
+        Boolean getIsVegetarian() {
+            return isVegetarian;
+        }
+
+        Short getNumOfServings() {
+            return numOfServings;
+        }
+
+        String getInstructions() {
+            return instructions;
+        }
+
+        LocalDateTime getModifiedTime() {
+            return modifiedTime;
+        }
+
+        Long getIngredientId() {
+            return ingredientId;
+        }
+
+        String getIngredientName() {
+            return ingredientName;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package github.ikhvjs.recipes.service;
+
+import github.ikhvjs.recipes.exception.InvalidSearchParamsException;
+import github.ikhvjs.recipes.model.Recipe;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Position of the last recipe of a page, in (modifiedTime, id) order.
+ * Clients only ever see it as an opaque url-safe token.
+ */
+public final class RecipeCursor {
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime modifiedTime;
+    private final Long id;
+
+    public RecipeCursor(LocalDateTime modifiedTime, Long id) {
+        this.modifiedTime = modifiedTime;
+        this.id = id;
+    }
+
+    public static RecipeCursor of(Recipe recipe) {
+        return new RecipeCursor(recipe.getModifiedTime(), recipe.getId());
+    }
+
+    public static RecipeCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int index = raw.indexOf(SEPARATOR);
+            String modifiedTime = raw.substring(0, index);
+            return new RecipeCursor(
+                    modifiedTime.isEmpty() ? null : LocalDateTime.parse(modifiedTime),
+                    Long.valueOf(raw.substring(index + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidSearchParamsException(List.of("after : invalid cursor"));
+        }
+    }
+
+    // modified_time keeps microseconds and rounds the nanoseconds of a freshly written timestamp,
+    // so the cursor rounds them the same way to seek from the stored value
+    public String encode() {
+        String raw = (modifiedTime == null ? "" : modifiedTime.plusNanos(500).truncatedTo(ChronoUnit.MICROS).toString())
+                + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDateTime getModifiedTime() {
+        return modifiedTime;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,10 @@
+package github.ikhvjs.recipes.service;
+
+import github.ikhvjs.recipes.controller.BulkImportResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface RecipeImportService {
+    BulkImportResult importRecipes(InputStream body) throws IOException;
+}
@@ -0,0 +1,202 @@
+package github.ikhvjs.recipes.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import github.ikhvjs.recipes.controller.BulkImportItem;
+import github.ikhvjs.recipes.controller.BulkImportResult;
+import github.ikhvjs.recipes.index.RecipeIngredientIndexes;
+import github.ikhvjs.recipes.index.RecipeNameRegistry;
+import github.ikhvjs.recipes.model.Recipe;
+import github.ikhvjs.recipes.repository.RecipeRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Reads recipes one by one from a JSON array or NDJSON body and inserts them in
+ * transactions of {@code recipes.bulk.batch-size}. Items that fail parsing, validation
+ * or insertion are reported by index without aborting the rest of the import.
+ */
+@Service
+public class RecipeImportServiceImpl implements RecipeImportService {
+    private static final Logger logger = LogManager.getLogger(RecipeImportServiceImpl.class);
+
+    private static final String DUPLICATE_NAME = "recipeName : Recipe Name is already registered";
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeIngredientIndexes recipeIngredientIndexes;
+    private final RecipeNameRegistry recipeNameRegistry;
+    private final IngredientNameService ingredientNameService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public RecipeImportServiceImpl(RecipeRepository recipeRepository,
+                                   RecipeIngredientIndexes recipeIngredientIndexes,
+                                   RecipeNameRegistry recipeNameRegistry,
+                                   IngredientNameService ingredientNameService,
+                                   ObjectMapper objectMapper,
+                                   Validator validator,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${recipes.bulk.batch-size:500}") int batchSize) {
+        this.recipeRepository = recipeRepository;
+        this.recipeIngredientIndexes = recipeIngredientIndexes;
+        this.recipeNameRegistry = recipeNameRegistry;
+        this.ingredientNameService = ingredientNameService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public BulkImportResult importRecipes(InputStream body) throws IOException {
+        List<BulkImportItem> items = new ArrayList<>();
+        Map<Integer, Recipe> batch = new LinkedHashMap<>();
+        int index = 0;
+
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+
+            while (token != null && token != JsonToken.END_ARRAY) {
+                JsonNode node = objectMapper.readTree(parser);
+                final int itemIndex = index++;
+                read(itemIndex, node, items).ifPresent(recipe -> batch.put(itemIndex, recipe));
+
+                if (batch.size() == batchSize) {
+                    save(batch, items);
+                }
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException e) {
+            // the rest of the body cannot be located reliably
+            items.add(BulkImportItem.failed(index, List.of("Malformed JSON : " + e.getOriginalMessage())));
+        }
+        save(batch, items);
+
+        items.sort(Comparator.comparingInt(BulkImportItem::getIndex));
+        int created = (int) items.stream().filter(item -> item.getId() != null).count();
+        logger.info("Imported {} recipes, {} failed", created, items.size() - created);
+        return new BulkImportResult(created, items.size() - created, items);
+    }
+
+    private Optional<Recipe> read(int index, JsonNode node, List<BulkImportItem> items) {
+        Recipe recipe;
+        try {
+            recipe = objectMapper.treeToValue(node, Recipe.class);
+        } catch (JsonProcessingException e) {
+            items.add(BulkImportItem.failed(index, List.of(e.getOriginalMessage())));
+            return Optional.empty();
+        }
+        if (recipe == null) {
+            items.add(BulkImportItem.failed(index, List.of("Recipe must be an object")));
+            return Optional.empty();
+        }
+
+        List<String> messages = validator.validate(recipe).stream()
+                .map(err -> String.format("%s : %s", err.getPropertyPath(), err.getMessage()))
+                .collect(Collectors.toList());
+        if (!messages.isEmpty()) {
+            items.add(BulkImportItem.failed(index, messages));
+            return Optional.empty();
+        }
+
+        clearIds(recipe);
+        return Optional.of(recipe);
+    }
+
+    private void save(Map<Integer, Recipe> batch, List<BulkImportItem> items) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<Integer, Recipe> unique = withoutDuplicateNames(batch, items);
+        // one dictionary lookup for the ingredients of the whole batch
+        ingredientNameService.resolve(unique.values().stream()
+                .filter(recipe -> recipe.getIngredients() != null)
+                .flatMap(recipe -> recipe.getIngredients().stream())
+                .collect(Collectors.toList()));
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> recipeRepository.saveAll(unique.values()));
+            unique.forEach((index, recipe) -> items.add(created(index, recipe)));
+        } catch (DataAccessException | TransactionException e) {
+            logger.warn("Batch insert failed, retrying recipes one by one: {}", e.getMessage());
+            unique.forEach((index, recipe) -> items.add(saveOne(index, recipe)));
+        }
+
+        // keeps the persistence context of the request from growing with the import
+        entityManager.clear();
+        batch.clear();
+    }
+
+    // one name query per batch instead of the per-recipe UniqueRecipeValidator query
+    private Map<Integer, Recipe> withoutDuplicateNames(Map<Integer, Recipe> batch, List<BulkImportItem> items) {
+        Set<String> seen = recipeRepository.findExistingRecipeNames(
+                        batch.values().stream().map(Recipe::getRecipeName).collect(Collectors.toList()))
+                .stream()
+                .map(name -> name.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toCollection(HashSet::new));
+
+        Map<Integer, Recipe> unique = new LinkedHashMap<>();
+        batch.forEach((index, recipe) -> {
+            if (seen.add(recipe.getRecipeName().toLowerCase(Locale.ROOT))) {
+                unique.put(index, recipe);
+            } else {
+                items.add(BulkImportItem.failed(index, List.of(DUPLICATE_NAME)));
+            }
+        });
+        return unique;
+    }
+
+    private BulkImportItem saveOne(int index, Recipe recipe) {
+        clearIds(recipe);
+        try {
+            return created(index, transactionTemplate.execute(status -> recipeRepository.save(recipe)));
+        } catch (DataAccessException | TransactionException e) {
+            return BulkImportItem.failed(index, List.of(NestedExceptionUtils.getMostSpecificCause(e).getMessage()));
+        }
+    }
+
+    private BulkImportItem created(int index, Recipe recipe) {
+        recipeIngredientIndexes.put(recipe.getId(), recipe.getIngredients());
+        recipeNameRegistry.put(recipe.getId(), recipe.getRecipeName());
+        return BulkImportItem.created(index, recipe.getId());
+    }
+
+    // bulk import only creates, ids in the body must not turn into updates; neither may the ids and
+    // versions a rolled back batch left behind, a non-null version makes save() merge instead of persist
+    private static void clearIds(Recipe recipe) {
+        recipe.setId(null);
+        recipe.setVersion(null);
+        if (recipe.getIngredients() != null) {
+            recipe.getIngredients().forEach(ingredient -> {
+                ingredient.setId(null);
+                ingredient.setVersion(null);
+            });
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package github.ikhvjs.recipes.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * The version and modifiedTime of a recipe, which its ETag and Last-Modified are made of.
+ * Writes to the recipe's ingredients move both.
+ */
+public final class RecipeRevision {
+    private final Long version;
+    private final LocalDateTime modifiedTime;
+
+    public RecipeRevision(Long version, LocalDateTime modifiedTime) {
+        this.version = version;
+        this.modifiedTime = modifiedTime;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getModifiedTime() {
+        return modifiedTime;
+    }
+}
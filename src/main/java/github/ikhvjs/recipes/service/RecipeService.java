@@ -1,21 +1,42 @@
 package github.ikhvjs.recipes.service;
 
 import github.ikhvjs.recipes.model.Recipe;
+import github.ikhvjs.recipes.controller.PantryMatchRequest;
 import github.ikhvjs.recipes.controller.QueryString;
+import github.ikhvjs.recipes.controller.RecipeFacets;
+import github.ikhvjs.recipes.controller.RecipeMatch;
+import github.ikhvjs.recipes.controller.RecipeSimilarity;
+import github.ikhvjs.recipes.controller.RecipePage;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 public interface RecipeService {
     Optional<Recipe> findById(Long id);
 
+    Optional<RecipeRevision> findRevisionById(Long id);
+
     Recipe create(Recipe recipe);
 
     List<Recipe> search(QueryString queryString);
 
-    Recipe update(Recipe recipe);
+    RecipePage searchPage(QueryString queryString);
+
+    RecipeFacets facets(QueryString queryString);
+
+    List<RecipeMatch> match(PantryMatchRequest pantry);
+
+    List<RecipeSimilarity> findSimilar(Long id, int limit);
+
+    void exportAll(Consumer<Recipe> action);
+
+    Recipe update(Long id, Recipe recipe, Collection<Long> versions);
 
     void deleteById(Long id);
 
+    int deleteAllById(Collection<Long> ids);
+
     boolean existsById(Long id);
 
 }
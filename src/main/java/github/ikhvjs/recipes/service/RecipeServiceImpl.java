@@ -1,17 +1,48 @@
 package github.ikhvjs.recipes.service;
 
 import github.ikhvjs.recipes.exception.InvalidSearchParamsException;
+import github.ikhvjs.recipes.exception.PreconditionFailedException;
+import github.ikhvjs.recipes.exception.ResourceNotFoundException;
+import github.ikhvjs.recipes.exception.ServiceUnavailableException;
+import github.ikhvjs.recipes.index.IngredientIndex;
+import github.ikhvjs.recipes.index.PantryIndex;
+import github.ikhvjs.recipes.index.RecipeIngredientIndexes;
+import github.ikhvjs.recipes.index.RecipeNameRegistry;
+import github.ikhvjs.recipes.index.SimilarityIndex;
+import github.ikhvjs.recipes.model.Ingredient;
 import github.ikhvjs.recipes.model.Recipe;
+import github.ikhvjs.recipes.controller.PantryMatchRequest;
 import github.ikhvjs.recipes.controller.QueryString;
+import github.ikhvjs.recipes.controller.RecipeFacets;
+import github.ikhvjs.recipes.controller.RecipeMatch;
+import github.ikhvjs.recipes.controller.RecipeSimilarity;
+import github.ikhvjs.recipes.controller.RecipePage;
+import github.ikhvjs.recipes.repository.IngredientRepository;
 import github.ikhvjs.recipes.repository.RecipeRepository;
+import github.ikhvjs.recipes.slowquery.SlowQueryLog;
+import github.ikhvjs.recipes.specification.RecipeSpecification;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static github.ikhvjs.recipes.specification.RecipeSpecification.*;
 
@@ -20,10 +51,46 @@ public class RecipeServiceImpl implements RecipeService{
 
     private static final Logger logger = LogManager.getLogger(RecipeServiceImpl.class);
 
+    private static final int DEFAULT_PAGE_LIMIT = 20;
+
+    private static final int DEFAULT_MATCH_MAX_MISSING = 2;
+
+    private static final int FACET_INGREDIENTS = 10;
+
+    // lowest numOfServings of each bucket of the numOfServings facet, the last one ends at 100
+    private static final int[] SERVINGS_BUCKETS = {1, 3, 5, 7, 11};
+
+    private static final String DUPLICATE_NAME = "recipeName : Recipe Name is already registered";
+
+    // ascending modifiedTime so an edit moves a recipe behind the cursor instead of skipping it
+    private static final Sort PAGE_SORT = Sort.by("modifiedTime", "id");
+
     private final RecipeRepository recipeRepository;
+    private final IngredientRepository ingredientRepository;
+    private final IngredientIndex ingredientIndex;
+    private final RecipeNameRegistry recipeNameRegistry;
+    private final MeterRegistry meterRegistry;
+    private final SlowQueryLog slowQueryLog;
+    private final IngredientNameService ingredientNameService;
+    private final PantryIndex pantryIndex;
+    private final SimilarityIndex similarityIndex;
+    private final RecipeIngredientIndexes recipeIngredientIndexes;
 
-    public RecipeServiceImpl(RecipeRepository recipeRepository) {
+    public RecipeServiceImpl(RecipeRepository recipeRepository, IngredientRepository ingredientRepository,
+                             IngredientIndex ingredientIndex, RecipeNameRegistry recipeNameRegistry,
+                             MeterRegistry meterRegistry, SlowQueryLog slowQueryLog,
+                             IngredientNameService ingredientNameService, PantryIndex pantryIndex,
+                             SimilarityIndex similarityIndex, RecipeIngredientIndexes recipeIngredientIndexes) {
         this.recipeRepository = recipeRepository;
+        this.ingredientRepository = ingredientRepository;
+        this.ingredientIndex = ingredientIndex;
+        this.recipeNameRegistry = recipeNameRegistry;
+        this.meterRegistry = meterRegistry;
+        this.slowQueryLog = slowQueryLog;
+        this.ingredientNameService = ingredientNameService;
+        this.pantryIndex = pantryIndex;
+        this.similarityIndex = similarityIndex;
+        this.recipeIngredientIndexes = recipeIngredientIndexes;
     }
 
     @Override
@@ -33,19 +100,167 @@ public class RecipeServiceImpl implements RecipeService{
 
     }
 
+    @Override
+    public Optional<RecipeRevision> findRevisionById(Long id) {
+        return recipeRepository.findVersionAndModifiedTimeById(id).stream()
+                .findFirst()
+                .map(row -> new RecipeRevision((Long) row[0], (LocalDateTime) row[1]));
+    }
+
     @Override
     public Recipe create(Recipe recipe) {
         logger.info("Add {}", recipe);
-        return recipeRepository.save(recipe);
+        Recipe newRecipe = saveWithName(recipe);
+        recipeIngredientIndexes.put(newRecipe.getId(), newRecipe.getIngredients());
+        return newRecipe;
     }
 
     @Override
     public List<Recipe> search(QueryString queryString) {
         logger.debug("Search recipes with query string {}",queryString);
 
+        Specification<Recipe> specification = toSpecification(queryString);
+        return timeSearch("search", queryString, () -> recipeRepository.findAll(specification));
+    }
+
+    @Override
+    public RecipePage searchPage(QueryString queryString) {
+        logger.debug("Search a page of recipes with query string {}",queryString);
+
+        final int limit = queryString.getLimit() == null ? DEFAULT_PAGE_LIMIT : Integer.parseInt(queryString.getLimit());
+        final RecipeCursor cursor = queryString.getAfter() == null ? null : RecipeCursor.decode(queryString.getAfter());
+
+        Specification<Recipe> specification = toSpecification(queryString)
+                .and(cursor == null ? null : after(cursor.getModifiedTime(), cursor.getId()));
+
+        // fetch one extra row to find out whether there is a next page
+        List<Recipe> recipes = timeSearch("searchPage", queryString,
+                () -> recipeRepository.findAll(specification, PAGE_SORT, limit + 1));
+
+        if (recipes.size() <= limit) {
+            return new RecipePage(recipes, null);
+        }
+
+        List<Recipe> page = recipes.subList(0, limit);
+        return new RecipePage(page, RecipeCursor.of(page.get(limit - 1)).encode());
+    }
+
+    // at most two grouped statements over the filters of the search, however many facets are asked for
+    @Override
+    public RecipeFacets facets(QueryString queryString) {
+        logger.debug("Count facets of recipes with query string {}", queryString);
+
+        final List<String> names = queryString.getFacets() == null ? List.of() : queryString.getFacets();
+        Specification<Recipe> specification = toSpecification(queryString);
+
+        return timeSearch("facets", queryString, () -> {
+            RecipeFacets facets = new RecipeFacets();
+            if (names.contains("isVegetarian") || names.contains("numOfServings")) {
+                Map<String, Long> isVegetarian = new LinkedHashMap<>();
+                isVegetarian.put("true", 0L);
+                isVegetarian.put("false", 0L);
+                Map<String, Long> numOfServings = new LinkedHashMap<>();
+                for (int bucket = 0; bucket < SERVINGS_BUCKETS.length; bucket++) {
+                    numOfServings.put(servingsBucket(bucket), 0L);
+                }
+                // both columns are nullable in the schema, a recipe without a value is in no bucket of that facet
+                for (Object[] row : recipeRepository.countByIsVegetarianAndNumOfServings(specification)) {
+                    if (row[0] != null) {
+                        isVegetarian.merge(row[0].toString(), (Long) row[2], Long::sum);
+                    }
+                    if (row[1] != null) {
+                        numOfServings.merge(servingsBucketOf((Short) row[1]), (Long) row[2], Long::sum);
+                    }
+                }
+                facets.setIsVegetarian(names.contains("isVegetarian") ? isVegetarian : null);
+                facets.setNumOfServings(names.contains("numOfServings") ? numOfServings : null);
+            }
+            if (names.contains("ingredients")) {
+                facets.setIngredients(recipeRepository.countIngredientNames(specification, FACET_INGREDIENTS).stream()
+                        .map(row -> new RecipeFacets.IngredientCount((String) row[0], (Long) row[1]))
+                        .collect(Collectors.toList()));
+            }
+            return facets;
+        });
+    }
+
+    private static String servingsBucketOf(short numOfServings) {
+        int bucket = SERVINGS_BUCKETS.length - 1;
+        while (bucket > 0 && numOfServings < SERVINGS_BUCKETS[bucket]) {
+            bucket--;
+        }
+        return servingsBucket(bucket);
+    }
+
+    private static String servingsBucket(int bucket) {
+        int last = bucket + 1 < SERVINGS_BUCKETS.length ? SERVINGS_BUCKETS[bucket + 1] - 1 : 100;
+        return SERVINGS_BUCKETS[bucket] + "-" + last;
+    }
+
+    // ranked in memory by PantryIndex, only the recipes of the result are read from the database
+    @Override
+    public List<RecipeMatch> match(PantryMatchRequest pantry) {
+        logger.debug("Match recipes with pantry {}", pantry);
+        if (!pantryIndex.isEnabled()) {
+            throw new ServiceUnavailableException("Pantry match needs recipes.pantry-index.enabled=true");
+        }
+
+        final int maxMissing = pantry.getMaxMissing() == null ? DEFAULT_MATCH_MAX_MISSING : pantry.getMaxMissing();
+        final int limit = pantry.getLimit() == null ? DEFAULT_PAGE_LIMIT : pantry.getLimit();
+        // names no recipe has ever used cannot make up for a missing ingredient
+        Set<Integer> pantryIds = new HashSet<>(ingredientNameService.findIds(pantry.getIngredients()));
+
+        List<PantryIndex.Match> matches = Timer.builder("recipes.match")
+                .description("Pantry matches ranked by the pantry index")
+                .register(meterRegistry)
+                .record(() -> pantryIndex.match(pantryIds, maxMissing, limit));
+
+        List<Recipe> recipes = recipeRepository.findAllWithIngredientsById(matches.stream()
+                .map(PantryIndex.Match::getRecipeId)
+                .collect(Collectors.toList()));
+
+        return recipes.stream()
+                .map(recipe -> new RecipeMatch(recipe, recipe.getIngredients().stream()
+                        .filter(ingredient -> !pantryIds.contains(ingredient.getName().getId()))
+                        .map(Ingredient::getIngredientName)
+                        .collect(Collectors.toList())))
+                .collect(Collectors.toList());
+    }
+
+    // candidates come from the LSH buckets of SimilarityIndex, only the result is read from the database
+    @Override
+    public List<RecipeSimilarity> findSimilar(Long id, int limit) {
+        logger.debug("Find {} recipes similar to recipe id: {}", limit, id);
+        if (!similarityIndex.isEnabled()) {
+            throw new ServiceUnavailableException("Similar recipes need recipes.similarity-index.enabled=true");
+        }
+
+        List<SimilarityIndex.Similar> similar = Timer.builder("recipes.similar")
+                .description("Similar recipe lookups in the similarity index")
+                .register(meterRegistry)
+                .record(() -> similarityIndex.findSimilar(id, limit));
+
+        Map<Long, Double> similarities = similar.stream()
+                .collect(Collectors.toMap(SimilarityIndex.Similar::getRecipeId, SimilarityIndex.Similar::getSimilarity));
+        return recipeRepository.findAllWithIngredientsById(similar.stream()
+                        .map(SimilarityIndex.Similar::getRecipeId)
+                        .collect(Collectors.toList())).stream()
+                .map(recipe -> new RecipeSimilarity(recipe, similarities.get(recipe.getId())))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<Recipe> action) {
+        logger.info("Export all recipes");
+        recipeRepository.forEachWithIngredients(action);
+    }
+
+    private Specification<Recipe> toSpecification(QueryString queryString) {
         final Boolean isVegetarian = queryString.getIsVegetarian() == null ? null : Boolean.valueOf(queryString.getIsVegetarian());
         final Short numOfServings = queryString.getNumOfServings() == null ? null : Short.valueOf(queryString.getNumOfServings());
         final String instructions = queryString.getInstructionsContains();
+        final String instructionsMatch = queryString.getInstructionsMatch();
         final List<String> includeIngredients = queryString.getIncludeIngredients();
         final List<String> excludeIngredients = queryString.getExcludeIngredients();
 
@@ -55,32 +270,157 @@ public class RecipeServiceImpl implements RecipeService{
             messages.add("Query String must choose either includeIngredients or excludeIngredients");
         }
 
+        if(instructionsMatch != null && instructions == null){
+            messages.add("Query String instructionsMatch requires instructionsContains");
+        }
+
         if(!messages.isEmpty()){
             throw new InvalidSearchParamsException(messages);
         }
 
-        Specification<Recipe> specification = Specification
+        return Specification
                 .where(isVegetarian == null ? null : isVegetarian ? isVegetarian() : isNotVegetarian())
                 .and(numOfServings == null ? null :numOfServings(numOfServings))
-                .and(instructions == null ? null : introductionsContains(instructions))
-                .and(includeIngredients == null ? null : includeIngredients(includeIngredients))
-                .and(excludeIngredients == null ? null : excludeIngredients(excludeIngredients))
+                .and(instructions == null ? null : instructionsSpecification(instructions, instructionsMatch))
+                .and(includeIngredients == null ? null : findIndexedRecipeIds("includeIngredients", includeIngredients)
+                        .map(RecipeSpecification::idIn)
+                        .orElseGet(() -> includeIngredients(ingredientNameService.findIds(includeIngredients))))
+                .and(excludeIngredients == null ? null : findIndexedRecipeIds("excludeIngredients", excludeIngredients)
+                        .map(RecipeSpecification::idNotIn)
+                        .orElseGet(() -> excludeIngredients(ingredientNameService.findIds(excludeIngredients))))
                 ;
+    }
+
+    // the only filter resolved outside the database, the others are predicates of one SQL statement
+    private Optional<List<Long>> findIndexedRecipeIds(String filter, List<String> ingredientNames) {
+        return Timer.builder("recipes.search.ingredient.index")
+                .description("Ingredient index lookups of a recipe search")
+                .tag("filter", filter)
+                .register(meterRegistry)
+                .record(() -> ingredientIndex.findRecipeIds(ingredientNames));
+    }
+
+    private <T> T timeSearch(String operation, QueryString queryString, Supplier<T> query) {
+        return Timer.builder("recipes.search")
+                .description("Recipe search queries by the combination of filters")
+                .tag("operation", operation)
+                .tag("filters", filterNames(queryString))
+                .register(meterRegistry)
+                .record(() -> slowQueryLog.capture(operation, queryString, query));
+    }
+
+    // at most one tag value per combination of the six filters
+    private static String filterNames(QueryString queryString) {
+        StringJoiner names = new StringJoiner(",").setEmptyValue("none");
+        if (queryString.getIsVegetarian() != null) {
+            names.add("isVegetarian");
+        }
+        if (queryString.getNumOfServings() != null) {
+            names.add("numOfServings");
+        }
+        if (queryString.getInstructionsContains() != null) {
+            names.add("instructionsContains");
+        }
+        if (queryString.getInstructionsMatch() != null) {
+            names.add("instructionsMatch");
+        }
+        if (queryString.getIncludeIngredients() != null) {
+            names.add("includeIngredients");
+        }
+        if (queryString.getExcludeIngredients() != null) {
+            names.add("excludeIngredients");
+        }
+        return names.toString();
+    }
 
-        return recipeRepository.findAll(specification);
+    private static Specification<Recipe> instructionsSpecification(String instructions, String instructionsMatch) {
+        if ("term".equals(instructionsMatch)) {
+            return instructionsMatchTerms(instructions);
+        }
+        if ("phrase".equals(instructionsMatch)) {
+            return instructionsMatchPhrase(instructions);
+        }
+        return introductionsContains(instructions);
     }
 
+    // one UPDATE conditional on the versions, null for any version; the ingredients stay as they are,
+    // so only the name registry has to follow. The recipe is read afterwards for the response only
     @Override
-    public Recipe update(Recipe recipe) {
-        logger.info("Update recipe: {}", recipe);
+    @Transactional
+    public Recipe update(Long id, Recipe recipe, Collection<Long> versions) {
+        logger.info("Update recipe id:{} {}", id, recipe);
+
+        if (!recipeNameRegistry.reserve(id, recipe.getRecipeName())) {
+            throw new InvalidSearchParamsException(List.of(DUPLICATE_NAME));
+        }
+        int updated;
+        try {
+            updated = versions == null
+                    ? recipeRepository.updateById(id, recipe.getRecipeName(), recipe.getIsVegetarian(),
+                            recipe.getNumOfServings(), recipe.getInstructions(), LocalDateTime.now())
+                    : versions.isEmpty() ? 0 : recipeRepository.updateByIdAndVersionIn(id, versions, recipe.getRecipeName(),
+                            recipe.getIsVegetarian(), recipe.getNumOfServings(), recipe.getInstructions(), LocalDateTime.now());
+        } catch (RuntimeException e) {
+            recipeNameRegistry.release(recipe.getRecipeName());
+            throw e;
+        }
+        if (updated == 0) {
+            recipeNameRegistry.release(recipe.getRecipeName());
+            if (!recipeRepository.existsById(id)) {
+                throw new ResourceNotFoundException("Not found Recipe with id = " + id);
+            }
+            throw new PreconditionFailedException("Recipe with id = " + id + " does not match If-Match");
+        }
+        recipeNameRegistry.put(id, recipe.getRecipeName());
 
-        return recipeRepository.save(recipe);
+        return recipeRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Not found Recipe with id = " + id));
     }
 
     @Override
+    @Transactional
     public void deleteById(Long id) {
         logger.info("Delete recipe id:{}", id);
+        // an entity delete cascading to the ingredients, so only this recipe and its ingredients
+        // leave the second-level cache; a bulk statement would evict the whole regions
         recipeRepository.deleteById(id);
+        removeFromIndexes(List.of(id));
+    }
+
+    @Override
+    @Transactional
+    public int deleteAllById(Collection<Long> ids) {
+        logger.info("Delete recipes ids:{}", ids);
+        // two set-based statements instead of loading every recipe to cascade the delete row by row;
+        // Hibernate evicts the affected second-level cache regions after each bulk statement
+        ingredientRepository.deleteByRecipeIdIn(ids);
+        int deleted = recipeRepository.deleteByIdIn(ids);
+        removeFromIndexes(ids);
+        return deleted;
+    }
+
+    private void removeFromIndexes(Collection<Long> ids) {
+        AfterCommit.run(() -> {
+            ids.forEach(recipeIngredientIndexes::remove);
+            ids.forEach(recipeNameRegistry::remove);
+        });
+    }
+
+    // a concurrent write of the same name fails here instead of on the unique key of recipe_name
+    private Recipe saveWithName(Recipe recipe) {
+        if (!recipeNameRegistry.reserve(null, recipe.getRecipeName())) {
+            throw new InvalidSearchParamsException(List.of(DUPLICATE_NAME));
+        }
+        Recipe savedRecipe;
+        try {
+            ingredientNameService.resolve(recipe.getIngredients());
+            savedRecipe = recipeRepository.save(recipe);
+        } catch (RuntimeException e) {
+            recipeNameRegistry.release(recipe.getRecipeName());
+            throw e;
+        }
+        recipeNameRegistry.put(savedRecipe.getId(), savedRecipe.getRecipeName());
+        return savedRecipe;
     }
 
     @Override
@@ -0,0 +1,78 @@
+package github.ikhvjs.recipes.slowquery;
+
+import github.ikhvjs.recipes.controller.QueryString;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A search that took longer than recipes.slow-query.threshold, with the statements it executed
+ * and the plan of the first one, which is the search itself.
+ */
+public class SlowQuery {
+    private final Instant capturedAt;
+    private final String operation;
+    private final QueryString queryString;
+    private final long durationMillis;
+    private final List<Statement> statements;
+    private final List<Map<String, Object>> explain;
+
+    public SlowQuery(Instant capturedAt, String operation, QueryString queryString, long durationMillis,
+                     List<Statement> statements, List<Map<String, Object>> explain) {
+        this.capturedAt = capturedAt;
+        this.operation = operation;
+        this.queryString = queryString;
+        this.durationMillis = durationMillis;
+        this.statements = statements;
+        this.explain = explain;
+    }
+
+    public Instant getCapturedAt() {
+        return capturedAt;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public QueryString getQueryString() {
+        return queryString;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public List<Statement> getStatements() {
+        return statements;
+    }
+
+    public List<Map<String, Object>> getExplain() {
+        return explain;
+    }
+
+    public static class Statement {
+        private final String sql;
+        private final List<Object> parameters;
+        private final long durationMillis;
+
+        public Statement(String sql, List<Object> parameters, long durationMillis) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.durationMillis = durationMillis;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public List<Object> getParameters() {
+            return parameters;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+    }
+}
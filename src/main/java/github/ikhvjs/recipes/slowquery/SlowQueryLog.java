@@ -0,0 +1,121 @@
+package github.ikhvjs.recipes.slowquery;
+
+import github.ikhvjs.recipes.controller.QueryString;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The last recipes.slow-query.capacity searches slower than recipes.slow-query.threshold,
+ * served at /actuator/slowqueries.
+ * <p>
+ * The statements of a search are collected on its thread by the DataSource proxy of
+ * SlowQueryConfig, and EXPLAIN runs on the request thread, only once a search was slow.
+ */
+@Component
+public class SlowQueryLog {
+    private static final Logger logger = LogManager.getLogger(SlowQueryLog.class);
+
+    // a search is two statements, the recipes and then their ingredients, and its facets are counted
+    // in at most two; the cap only bounds the memory and the EXPLAINs of an entry if that regresses
+    private static final int MAX_STATEMENTS = 20;
+
+    private static final ThreadLocal<List<SlowQuery.Statement>> captured = new ThreadLocal<>();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final long thresholdNanos;
+    private final int capacity;
+    private final Deque<SlowQuery> entries = new ArrayDeque<>();
+
+    public SlowQueryLog(JdbcTemplate jdbcTemplate,
+                        @Value("${recipes.slow-query.enabled:true}") boolean enabled,
+                        @Value("${recipes.slow-query.threshold:500ms}") Duration threshold,
+                        @Value("${recipes.slow-query.capacity:100}") int capacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.thresholdNanos = threshold.toNanos();
+        this.capacity = capacity;
+    }
+
+    public <T> T capture(String operation, QueryString queryString, Supplier<T> query) {
+        if (!enabled || captured.get() != null) {
+            return query.get();
+        }
+
+        List<SlowQuery.Statement> statements = new ArrayList<>();
+        captured.set(statements);
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = query.get();
+        } finally {
+            captured.remove();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        if (elapsed >= thresholdNanos) {
+            long durationMillis = Duration.ofNanos(elapsed).toMillis();
+            logger.warn("Slow {} took {} ms with query string {}", operation, durationMillis, queryString);
+            add(new SlowQuery(Instant.now(), operation, queryString, durationMillis, statements, explain(statements)));
+        }
+        return result;
+    }
+
+    public static boolean isCapturing() {
+        return captured.get() != null;
+    }
+
+    /**
+     * Called by the DataSource proxy for every statement, keeps it if a search on this thread is captured.
+     */
+    public static void statementExecuted(String sql, List<Object> parameters, long durationMillis) {
+        List<SlowQuery.Statement> statements = captured.get();
+        if (statements != null && statements.size() < MAX_STATEMENTS) {
+            statements.add(new SlowQuery.Statement(sql, parameters, durationMillis));
+        }
+    }
+
+    private List<Map<String, Object>> explain(List<SlowQuery.Statement> statements) {
+        if (statements.isEmpty()) {
+            return List.of();
+        }
+        SlowQuery.Statement search = statements.get(0);
+        try {
+            return jdbcTemplate.queryForList("EXPLAIN " + search.getSql(), search.getParameters().toArray());
+        } catch (DataAccessException e) {
+            logger.warn("Could not explain {}: {}", search.getSql(), e.getMessage());
+            return List.of(Map.of("error", String.valueOf(e.getMessage())));
+        }
+    }
+
+    private synchronized void add(SlowQuery slowQuery) {
+        if (entries.size() == capacity) {
+            entries.removeLast();
+        }
+        entries.addFirst(slowQuery);
+    }
+
+    /**
+     * The captured searches, the most recent first.
+     */
+    public synchronized List<SlowQuery> findAll() {
+        return new ArrayList<>(entries);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+}
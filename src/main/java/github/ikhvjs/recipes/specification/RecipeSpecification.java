@@ -1,14 +1,22 @@
 package github.ikhvjs.recipes.specification;
 
+import github.ikhvjs.recipes.config.SqlFunctionContributor;
 import github.ikhvjs.recipes.model.Ingredient;
 import github.ikhvjs.recipes.model.Recipe;
 import org.springframework.data.jpa.domain.Specification;
 
 import javax.persistence.criteria.*;
 import java.text.MessageFormat;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public final class RecipeSpecification {
+    // same word characters as the default InnoDB full-text parser; drops boolean mode operators
+    private static final String NON_WORD = "[^\\p{L}\\p{N}_]+";
+
     public static Specification<Recipe> isVegetarian(){
         return ((root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("isVegetarian"),true));
     }
@@ -26,24 +34,88 @@ public final class RecipeSpecification {
                 criteriaBuilder.like(root.get("instructions"), MessageFormat.format("%{0}%", text)));
     }
 
-    public static Specification<Recipe> includeIngredients(List<String> ingredientNames){
-        return ((root, query, criteriaBuilder) -> {
-            Subquery<Ingredient> subQuery = query.subquery(Ingredient.class);
-            Root<Ingredient> subRoot = subQuery.from(Ingredient.class);
+    // needs the FULLTEXT index on instructions, see docker/init-db.sql and docker/migrations/004_search_indexes.sql
+    public static Specification<Recipe> instructionsMatchTerms(String text){
+        return instructionsMatch(toTermsQuery(text));
+    }
 
-            Predicate sameRecipeId = criteriaBuilder.equal(subRoot.get("recipe"), root.get("id"));
-            Predicate IngredientNameContains = criteriaBuilder.in(subRoot.get("ingredientName")).value(ingredientNames);
-            return criteriaBuilder.exists(subQuery.select(subRoot).where(sameRecipeId, IngredientNameContains));
-        });
+    public static Specification<Recipe> instructionsMatchPhrase(String text){
+        return instructionsMatch(toPhraseQuery(text));
     }
-    public static Specification<Recipe> excludeIngredients(List<String> ingredientNames){
+
+    private static Specification<Recipe> instructionsMatch(String booleanModeQuery){
+        return ((root, query, criteriaBuilder) -> booleanModeQuery.isEmpty()
+                ? criteriaBuilder.disjunction()
+                : criteriaBuilder.greaterThan(
+                        criteriaBuilder.function(SqlFunctionContributor.MATCH_AGAINST, Double.class,
+                                root.get("instructions"), criteriaBuilder.literal(booleanModeQuery)),
+                        0.0));
+    }
+
+    public static String toTermsQuery(String text){
+        return words(text).stream()
+                .map(word -> "+" + word)
+                .collect(Collectors.joining(" "));
+    }
+
+    public static String toPhraseQuery(String text){
+        List<String> words = words(text);
+        return words.isEmpty() ? "" : "\"" + String.join(" ", words) + "\"";
+    }
+
+    private static List<String> words(String text){
+        return Arrays.stream(text.split(NON_WORD))
+                .filter(word -> !word.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    // compares the integer ids of IngredientName, which RecipeServiceImpl resolves once per search;
+    // none of the names being known means no recipe includes them
+    public static Specification<Recipe> includeIngredients(Collection<Integer> ingredientNameIds){
+        return ((root, query, criteriaBuilder) -> ingredientNameIds.isEmpty()
+                ? criteriaBuilder.disjunction()
+                : criteriaBuilder.exists(ingredientSubquery(root, query, criteriaBuilder, ingredientNameIds)));
+    }
+    public static Specification<Recipe> excludeIngredients(Collection<Integer> ingredientNameIds){
+        return ((root, query, criteriaBuilder) -> ingredientNameIds.isEmpty()
+                ? criteriaBuilder.conjunction()
+                : criteriaBuilder.not(criteriaBuilder.exists(ingredientSubquery(root, query, criteriaBuilder, ingredientNameIds))));
+    }
+
+    private static Subquery<Ingredient> ingredientSubquery(Root<Recipe> root, CriteriaQuery<?> query,
+                                                           CriteriaBuilder criteriaBuilder, Collection<Integer> ingredientNameIds){
+        Subquery<Ingredient> subQuery = query.subquery(Ingredient.class);
+        Root<Ingredient> subRoot = subQuery.from(Ingredient.class);
+
+        Predicate sameRecipeId = criteriaBuilder.equal(subRoot.get("recipe"), root.get("id"));
+        Predicate ingredientNameIdIn = subRoot.get("name").get("id").in(ingredientNameIds);
+        return subQuery.select(subRoot).where(sameRecipeId, ingredientNameIdIn);
+    }
+
+    public static Specification<Recipe> idIn(Collection<Long> ids){
+        return ((root, query, criteriaBuilder) ->
+                ids.isEmpty() ? criteriaBuilder.disjunction() : root.get("id").in(ids));
+    }
+
+    public static Specification<Recipe> idNotIn(Collection<Long> ids){
+        return ((root, query, criteriaBuilder) ->
+                ids.isEmpty() ? criteriaBuilder.conjunction() : criteriaBuilder.not(root.get("id").in(ids)));
+    }
+
+    // Keyset seek for ORDER BY modifiedTime, id; MySQL sorts NULL modifiedTime first
+    public static Specification<Recipe> after(LocalDateTime modifiedTime, Long id){
         return ((root, query, criteriaBuilder) -> {
-            Subquery<Ingredient> subQuery = query.subquery(Ingredient.class);
-            Root<Ingredient> subRoot = subQuery.from(Ingredient.class);
+            Path<LocalDateTime> modifiedTimePath = root.get("modifiedTime");
+            Path<Long> idPath = root.get("id");
 
-            Predicate sameRecipeId = criteriaBuilder.equal(subRoot.get("recipe"), root.get("id"));
-            Predicate IngredientNameContains = criteriaBuilder.in(subRoot.get("ingredientName")).value(ingredientNames);
-            return criteriaBuilder.not(criteriaBuilder.exists(subQuery.select(subRoot).where(sameRecipeId, IngredientNameContains)));
+            if (modifiedTime == null) {
+                return criteriaBuilder.or(
+                        criteriaBuilder.isNotNull(modifiedTimePath),
+                        criteriaBuilder.and(criteriaBuilder.isNull(modifiedTimePath), criteriaBuilder.greaterThan(idPath, id)));
+            }
+            return criteriaBuilder.or(
+                    criteriaBuilder.greaterThan(modifiedTimePath, modifiedTime),
+                    criteriaBuilder.and(criteriaBuilder.equal(modifiedTimePath, modifiedTime), criteriaBuilder.greaterThan(idPath, id)));
         });
     }
 }
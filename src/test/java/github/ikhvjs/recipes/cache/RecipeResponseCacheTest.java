@@ -0,0 +1,69 @@
+package github.ikhvjs.recipes.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import github.ikhvjs.recipes.model.Ingredient;
+import github.ikhvjs.recipes.model.Recipe;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecipeResponseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final RecipeResponseCache cache = new RecipeResponseCache(objectMapper, 1024 * 1024);
+
+    private final LocalDateTime modifiedTime = LocalDateTime.parse("2022-08-04T10:11:30");
+
+    private Recipe recipe(String recipeName, LocalDateTime modifiedTime) {
+        return new Recipe(1L, recipeName, true, (short) 2, "test instructions",
+                new ArrayList<>(List.of(new Ingredient(1L, "a"))), modifiedTime);
+    }
+
+    @Test
+    @DisplayName("return the recipe serialized as JSON")
+    void testGetOrSerialize() throws Exception {
+        byte[] body = cache.getOrSerialize(recipe("test1", modifiedTime));
+
+        assertEquals(objectMapper.writeValueAsString(recipe("test1", modifiedTime)), new String(body, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("return the cached bytes while modifiedTime is unchanged")
+    void testGetOrSerializeCached() throws Exception {
+        byte[] body = cache.getOrSerialize(recipe("test1", modifiedTime));
+
+        assertSame(body, cache.getOrSerialize(recipe("test1", modifiedTime)));
+    }
+
+    @Test
+    @DisplayName("serialize again once modifiedTime has changed")
+    void testGetOrSerializeModified() throws Exception {
+        cache.getOrSerialize(recipe("test1", modifiedTime));
+
+        byte[] body = cache.getOrSerialize(recipe("test1 update", modifiedTime.plusSeconds(1)));
+
+        assertTrue(new String(body, StandardCharsets.UTF_8).contains("\"recipeName\":\"test1 update\""));
+    }
+
+    @Test
+    @DisplayName("serialize again after the recipe was evicted")
+    void testEvict() throws Exception {
+        cache.getOrSerialize(recipe("test1", modifiedTime));
+        cache.evict(1L);
+
+        byte[] body = cache.getOrSerialize(recipe("test1 update", modifiedTime));
+
+        assertTrue(new String(body, StandardCharsets.UTF_8).contains("\"recipeName\":\"test1 update\""));
+    }
+}
@@ -0,0 +1,53 @@
+package github.ikhvjs.recipes.config;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.Filter.Result;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SamplingFilterTest {
+
+    private static LogEvent event(String loggerName, Level level) {
+        return Log4jLogEvent.newBuilder().setLoggerName(loggerName).setLevel(level).build();
+    }
+
+    @Test
+    @DisplayName("keep one in every n events of the sampled logger")
+    void testSampling() {
+        SamplingFilter filter = SamplingFilter.createFilter("github.ikhvjs.recipes.controller", Level.INFO, 3, null, null);
+
+        List<Result> results = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            results.add(filter.filter(event("github.ikhvjs.recipes.controller.RecipeController", Level.INFO)));
+        }
+
+        assertEquals(List.of(Result.NEUTRAL, Result.DENY, Result.DENY, Result.NEUTRAL, Result.DENY, Result.DENY),
+                results);
+    }
+
+    @Test
+    @DisplayName("leave more severe levels and other loggers alone")
+    void testNotSampled() {
+        SamplingFilter filter = SamplingFilter.createFilter("github.ikhvjs.recipes.controller", Level.INFO, 1000, null, null);
+        filter.filter(event("github.ikhvjs.recipes.controller.RecipeController", Level.INFO));
+
+        assertEquals(Result.NEUTRAL, filter.filter(event("github.ikhvjs.recipes.controller.RecipeController", Level.WARN)));
+        assertEquals(Result.NEUTRAL, filter.filter(event("github.ikhvjs.recipes.service.RecipeServiceImpl", Level.INFO)));
+        assertEquals(Result.NEUTRAL, filter.filter(event("github.ikhvjs.recipes.controllers", Level.INFO)));
+        assertEquals(Result.DENY, filter.filter(event("github.ikhvjs.recipes.controller", Level.DEBUG)));
+    }
+
+    @Test
+    @DisplayName("refuse a configuration without a logger or with every below 1")
+    void testInvalidConfiguration() {
+        assertNull(SamplingFilter.createFilter(null, Level.INFO, 10, null, null));
+        assertNull(SamplingFilter.createFilter("github.ikhvjs", Level.INFO, 0, null, null));
+    }
+}
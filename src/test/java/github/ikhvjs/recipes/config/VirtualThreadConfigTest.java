@@ -0,0 +1,44 @@
+package github.ikhvjs.recipes.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class VirtualThreadConfigTest {
+
+    @Test
+    @DisplayName("run tasks on virtual threads on Java 21 or later")
+    void testNewVirtualThreadPerTaskExecutor() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21);
+        ExecutorService executor = VirtualThreadConfig.newVirtualThreadPerTaskExecutor();
+        try {
+            Object isVirtual = executor.submit(() -> Thread.class.getMethod("isVirtual").invoke(Thread.currentThread())).get();
+            assertEquals(Boolean.TRUE, isVirtual);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("throw IllegalStateException naming the runtime before Java 19")
+    void testNewVirtualThreadPerTaskExecutorUnsupported() {
+        assumeTrue(Runtime.version().feature() < 19);
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                VirtualThreadConfig::newVirtualThreadPerTaskExecutor);
+        assertTrue(exception.getMessage().contains(Runtime.version().toString()));
+    }
+
+    @Test
+    @DisplayName("throw IllegalStateException naming the JVM flag if Log4j thread locals are on")
+    void testRequireThreadLocalsDisabled() {
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> VirtualThreadConfig.requireThreadLocalsDisabled(true));
+        assertTrue(exception.getMessage().contains("-Dlog4j2.enable.threadlocals=false"));
+
+        assertDoesNotThrow(() -> VirtualThreadConfig.requireThreadLocalsDisabled(false));
+    }
+}
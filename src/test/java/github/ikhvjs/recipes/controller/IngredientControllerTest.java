@@ -1,8 +1,13 @@
 package github.ikhvjs.recipes.controller;
 
+import github.ikhvjs.recipes.exception.PreconditionFailedException;
+import github.ikhvjs.recipes.exception.ResourceNotFoundException;
+import github.ikhvjs.recipes.exception.ServiceUnavailableException;
+import github.ikhvjs.recipes.index.IngredientSuggestIndex;
 import github.ikhvjs.recipes.model.Ingredient;
 import github.ikhvjs.recipes.model.Recipe;
 import github.ikhvjs.recipes.service.IngredientService;
+import github.ikhvjs.recipes.service.RecipeRevision;
 import github.ikhvjs.recipes.service.RecipeService;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,6 +17,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -23,9 +29,11 @@ import java.util.List;
 import java.util.Optional;
 
 import static github.ikhvjs.recipes.controller.JsonConverter.toJsonString;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -52,7 +60,7 @@ public class IngredientControllerTest {
 
     @BeforeAll
     public static void setUp() {
-        mockedLocalDateTime = Mockito.mockStatic(LocalDateTime.class);
+        mockedLocalDateTime = Mockito.mockStatic(LocalDateTime.class, Mockito.CALLS_REAL_METHODS);
         mockedLocalDateTime.when(LocalDateTime::now).thenReturn(mockCurrentTime);
     }
 
@@ -107,6 +115,34 @@ public class IngredientControllerTest {
                     .andExpect(status().isNotFound());
         }
 
+        @Test
+        @DisplayName("return 200 ok with the ETag of the recipe")
+        void testRecipeIngredientGetValidators() throws Exception {
+            doReturn(Optional.of(new RecipeRevision(3L, mockCurrentTime))).when(recipeService).findRevisionById(mockRecipeId);
+            doReturn(mockIngredients).when(ingredientService).findByRecipeId(mockRecipeId);
+
+            mockMvc.perform(get("/recipes/{id}/ingredients", mockRecipeId))
+
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                    .andExpect(jsonPath("$", hasSize(2)));
+
+            verify(recipeService, never()).existsById(any());
+        }
+
+        @Test
+        @DisplayName("return 304 not modified if If-None-Match matches")
+        void testRecipeIngredientGetNotModified() throws Exception {
+            doReturn(Optional.of(new RecipeRevision(3L, mockCurrentTime))).when(recipeService).findRevisionById(mockRecipeId);
+
+            mockMvc.perform(get("/recipes/{id}/ingredients", mockRecipeId)
+                            .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+
+                    .andExpect(status().isNotModified());
+
+            verify(ingredientService, never()).findByRecipeId(any());
+        }
+
         @Test
         @DisplayName("return 500 error if the retrieval failed")
         void testRecipeIngredientGetFailure() throws Exception {
@@ -118,6 +154,58 @@ public class IngredientControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("GET /ingredients:suggest")
+    class TestSuggestIngredients {
+
+        @Test
+        @DisplayName("return 200 ok and the suggested names")
+        void testSuggestIngredientsSuccess() throws Exception {
+            doReturn(List.of(new IngredientSuggestIndex.Suggestion("garlic", 3)))
+                    .when(ingredientService).suggest("gar", 10);
+
+            mockMvc.perform(get("/ingredients:suggest").param("prefix", "gar"))
+
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].ingredientName", is("garlic")))
+                    .andExpect(jsonPath("$[0].recipeCount", is(3)));
+        }
+
+        @Test
+        @DisplayName("return 400 error if the prefix is missing or the limit out of range")
+        void testSuggestIngredientsInvalid() throws Exception {
+            mockMvc.perform(get("/ingredients:suggest").param("limit", "21"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.messages", containsInAnyOrder(
+                            "prefix : size must be between 1 and 100",
+                            "limit : range must be between 1 and 20")));
+
+            verify(ingredientService, never()).suggest(any(), anyInt());
+        }
+
+        @Test
+        @DisplayName("return 400 error if the limit is not a number")
+        void testSuggestIngredientsLimitNotNumber() throws Exception {
+            mockMvc.perform(get("/ingredients:suggest").param("prefix", "gar").param("limit", "abc"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.messages[0]", is("limit : range must be between 1 and 20")));
+
+            verify(ingredientService, never()).suggest(any(), anyInt());
+        }
+
+        @Test
+        @DisplayName("return 503 error if the suggest index is turned off")
+        void testSuggestIngredientsIndexDisabled() throws Exception {
+            doThrow(new ServiceUnavailableException("Ingredient suggestions need recipes.suggest-index.enabled=true"))
+                    .when(ingredientService).suggest("gar", 10);
+
+            mockMvc.perform(get("/ingredients:suggest").param("prefix", "gar"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(jsonPath("$.messages[0]", is("Ingredient suggestions need recipes.suggest-index.enabled=true")));
+        }
+    }
+
     @Nested
     @DisplayName("GET /ingredients/{id}")
     class TestGetRecipeById {
@@ -286,7 +374,7 @@ public class IngredientControllerTest {
         @DisplayName("return 200 ok if the update succeeded")
         void testRecipeIngredientUpdateSuccess() throws Exception {
             doReturn(Optional.of(mockIngredient)).when(ingredientService).findById(mockIngredientId);
-            doReturn(mockIngredient).when(ingredientService).update(any());
+            doReturn(mockIngredient).when(ingredientService).update(any(), any(), any());
 
             mockMvc.perform(patch("/ingredients/{id}", mockIngredientId)
                             .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -299,13 +387,42 @@ public class IngredientControllerTest {
                     .andExpect(jsonPath("$.ingredientName", is(mockIngredientName)));
         }
 
+        @Test
+        @DisplayName("return 200 ok and the next ETag of the recipe if If-Match is its current ETag")
+        void testRecipeIngredientUpdateIfMatch() throws Exception {
+            doReturn(mockIngredient).when(ingredientService).update(eq(mockIngredientId), any(), eq(List.of(3L)));
+
+            mockMvc.perform(patch("/ingredients/{id}", mockIngredientId)
+                            .header(HttpHeaders.IF_MATCH, "\"3\"")
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(toJsonString(patchIngredient)))
+
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+        }
+
+        @Test
+        @DisplayName("return 412 error if If-Match is not the ETag of the recipe")
+        void testRecipeIngredientUpdateIfMatchStale() throws Exception {
+            doThrow(new PreconditionFailedException("Ingredient with id = 1 does not match If-Match"))
+                    .when(ingredientService).update(eq(mockIngredientId), any(), eq(List.of(1L)));
+
+            mockMvc.perform(patch("/ingredients/{id}", mockIngredientId)
+                            .header(HttpHeaders.IF_MATCH, "\"1\"")
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(toJsonString(patchIngredient)))
+
+                    .andExpect(status().isPreconditionFailed())
+                    .andExpect(jsonPath("$.messages[0]", is("Ingredient with id = 1 does not match If-Match")));
+        }
+
         @Test
         @DisplayName("return 400 error if the ingredient name is null")
         void testRecipeIngredientUpdateRecipeNull() throws Exception {
             final Ingredient patchIngredient = new Ingredient(null);
 
             doReturn(Optional.of(mockIngredient)).when(ingredientService).findById(mockIngredientId);
-            doReturn(mockIngredient).when(ingredientService).update(any());
+            doReturn(mockIngredient).when(ingredientService).update(any(), any(), any());
 
             mockMvc.perform(patch("/ingredients/{id}", mockIngredientId)
                             .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -327,7 +444,7 @@ public class IngredientControllerTest {
             final Ingredient patchIngredient = new Ingredient("");
 
             doReturn(Optional.of(mockIngredient)).when(ingredientService).findById(mockIngredientId);
-            doReturn(mockIngredient).when(ingredientService).update(any());
+            doReturn(mockIngredient).when(ingredientService).update(any(), any(), any());
 
             mockMvc.perform(patch("/ingredients/{id}", mockIngredientId)
                             .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -349,7 +466,7 @@ public class IngredientControllerTest {
             final Ingredient patchIngredient = new Ingredient("*".repeat(101));
 
             doReturn(Optional.of(mockIngredient)).when(ingredientService).findById(mockIngredientId);
-            doReturn(mockIngredient).when(ingredientService).update(any());
+            doReturn(mockIngredient).when(ingredientService).update(any(), any(), any());
 
             mockMvc.perform(patch("/ingredients/{id}", mockIngredientId)
                             .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -368,8 +485,8 @@ public class IngredientControllerTest {
         @Test
         @DisplayName("return 404 error if the ingredient is not found")
         void testRecipeIngredientUpdateRecipeNotFound() throws Exception {
-            doReturn(Optional.empty()).when(ingredientService).findById(mockIngredientId);
-            doReturn(mockIngredient).when(ingredientService).update(any());
+            doThrow(new ResourceNotFoundException("Not found Ingredient with id = " + mockIngredientId))
+                    .when(ingredientService).update(any(), any(), any());
 
             mockMvc.perform(patch("/ingredients/{id}", mockIngredientId)
                             .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -382,7 +499,7 @@ public class IngredientControllerTest {
         @DisplayName("return 500 error if the update failed")
         void testRecipeIngredientUpdateFailure() throws Exception {
             doReturn(Optional.of(mockIngredient)).when(ingredientService).findById(mockIngredientId);
-            doThrow(new RuntimeException()).when(ingredientService).update(any());
+            doThrow(new RuntimeException()).when(ingredientService).update(any(), any(), any());
 
             mockMvc.perform(patch("/ingredients/{id}", mockIngredientId)
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -0,0 +1,158 @@
+package github.ikhvjs.recipes.controller;
+
+import github.ikhvjs.recipes.exception.InvalidSearchParamsException;
+import github.ikhvjs.recipes.model.Ingredient;
+import github.ikhvjs.recipes.model.Recipe;
+import github.ikhvjs.recipes.service.ReactiveRecipeService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = "recipes.reactive.enabled=true")
+@AutoConfigureMockMvc
+public class ReactiveRecipeControllerTest {
+    @MockBean
+    private ReactiveRecipeService service;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    static LocalDateTime mockCurrentTime = LocalDateTime.parse("2022-08-04T10:11:30");
+
+    final Recipe mockRecipe1 = new Recipe(1L, "test1", true, (short) 2, "test 1 instructions",
+            List.of(new Ingredient(1L, "test ingredient 1")), mockCurrentTime);
+    final Recipe mockRecipe2 = new Recipe(2L, "test2", false, (short) 4, "test 2 instructions",
+            List.of(), mockCurrentTime);
+
+    @Nested
+    @DisplayName("GET /reactive/recipes/{id}")
+    class TestGetRecipe {
+        @Test
+        @DisplayName("return 200 ok with the recipe")
+        void testGetRecipeSuccess() throws Exception {
+            doReturn(Mono.just(mockRecipe1)).when(service).findById(1L);
+
+            MvcResult result = mockMvc.perform(get("/reactive/recipes/{id}", 1))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.id", is(1)))
+                    .andExpect(jsonPath("$.recipeName", is("test1")))
+                    .andExpect(jsonPath("$.ingredients", hasSize(1)));
+        }
+
+        @Test
+        @DisplayName("return 404 error if the recipe was not found")
+        void testGetRecipeNotFound() throws Exception {
+            doReturn(Mono.empty()).when(service).findById(1L);
+
+            MvcResult result = mockMvc.perform(get("/reactive/recipes/{id}", 1))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isNotFound())
+                    .andExpect(jsonPath("$.messages[0]", is("Not found Recipe with id = 1")));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /reactive/recipes")
+    class TestSearchRecipes {
+        @Test
+        @DisplayName("stream the recipes as NDJSON")
+        void testSearchRecipesSuccess() throws Exception {
+            doReturn(Flux.just(mockRecipe1, mockRecipe2)).when(service).search(any());
+
+            MvcResult result = mockMvc.perform(get("/reactive/recipes").param("isVegetarian", "true"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                    .andExpect(content().string(allOf(
+                            org.hamcrest.Matchers.startsWith("{\"id\":1,"),
+                            containsString("\n{\"id\":2,"))));
+        }
+
+        @Test
+        @DisplayName("return 400 error if the query string is invalid")
+        void testSearchRecipesInvalid() throws Exception {
+            mockMvc.perform(get("/reactive/recipes").param("isVegetarian", "yes"))
+                    .andExpect(status().isBadRequest());
+
+            verify(service, never()).search(any());
+        }
+
+        @Test
+        @DisplayName("return 400 error if the search is rejected")
+        void testSearchRecipesRejected() throws Exception {
+            doReturn(Flux.error(new InvalidSearchParamsException(List.of("limit : paging is not supported by the reactive search"))))
+                    .when(service).search(any());
+
+            MvcResult result = mockMvc.perform(get("/reactive/recipes").param("limit", "10"))
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /reactive/recipes/{id}/ingredients")
+    class TestGetIngredients {
+        @Test
+        @DisplayName("return 200 ok with the ingredients of the recipe")
+        void testGetIngredientsSuccess() throws Exception {
+            doReturn(Mono.just(true)).when(service).existsById(1L);
+            doReturn(Flux.just(new Ingredient(1L, "a"), new Ingredient(2L, "b"))).when(service).findIngredientsByRecipeId(1L);
+
+            MvcResult result = mockMvc.perform(get("/reactive/recipes/{id}/ingredients", 1))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(2)))
+                    .andExpect(jsonPath("$[1].ingredientName", is("b")));
+        }
+
+        @Test
+        @DisplayName("return 404 error if the recipe was not found")
+        void testGetIngredientsNotFound() throws Exception {
+            doReturn(Mono.just(false)).when(service).existsById(1L);
+
+            MvcResult result = mockMvc.perform(get("/reactive/recipes/{id}/ingredients", 1))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isNotFound());
+        }
+    }
+}
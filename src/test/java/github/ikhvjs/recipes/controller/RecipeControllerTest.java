@@ -1,8 +1,14 @@
 package github.ikhvjs.recipes.controller;
 
+import github.ikhvjs.recipes.cache.RecipeResponseCache;
 import github.ikhvjs.recipes.dto.RecipeRequestBody;
+import github.ikhvjs.recipes.exception.PreconditionFailedException;
+import github.ikhvjs.recipes.exception.ResourceNotFoundException;
+import github.ikhvjs.recipes.exception.ServiceUnavailableException;
 import github.ikhvjs.recipes.model.Ingredient;
 import github.ikhvjs.recipes.model.Recipe;
+import github.ikhvjs.recipes.service.RecipeImportService;
+import github.ikhvjs.recipes.service.RecipeRevision;
 import github.ikhvjs.recipes.service.RecipeService;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,12 +21,14 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static github.ikhvjs.recipes.controller.JsonConverter.toJsonString;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -30,6 +38,10 @@ import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest
@@ -38,9 +50,15 @@ public class RecipeControllerTest  {
     @MockBean
     private RecipeService service;
 
+    @MockBean
+    private RecipeImportService importService;
+
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private RecipeResponseCache recipeResponseCache;
+
     static String mockCurrentDateTimeString = "2022-08-04T10:11:30";
     static LocalDateTime mockCurrentTime = LocalDateTime.parse(mockCurrentDateTimeString);
 
@@ -48,7 +66,7 @@ public class RecipeControllerTest  {
 
     @BeforeAll
     public static void setUp() {
-        mockedLocalDateTime = Mockito.mockStatic(LocalDateTime.class);
+        mockedLocalDateTime = Mockito.mockStatic(LocalDateTime.class, Mockito.CALLS_REAL_METHODS);
         mockedLocalDateTime.when(LocalDateTime::now).thenReturn(mockCurrentTime);
     }
 
@@ -57,6 +75,12 @@ public class RecipeControllerTest  {
         mockedLocalDateTime.close();
     }
 
+    // the mocked recipes share ids and modifiedTime
+    @BeforeEach
+    void clearResponseCache() {
+        recipeResponseCache.clear();
+    }
+
 
     @Nested
     @DisplayName("GET /recipes/{id}")
@@ -100,6 +124,38 @@ public class RecipeControllerTest  {
                     .andExpect(jsonPath("$.modifiedTime", is(mockCurrentDateTimeString)));
         }
 
+        @Test
+        @DisplayName("return 200 ok with ETag taken from version and Last-Modified from modifiedTime")
+        void testGetRecipeByIdValidators() throws Exception {
+            Recipe mockRecipe = new Recipe(mockRecipeId, mockRecipeName, mockIsVegetarian,  mockNumOfServings,
+                    mockInstructions, List.of(),  mockCurrentTime);
+            mockRecipe.setVersion(3L);
+
+            doReturn(Optional.of(new RecipeRevision(3L, mockCurrentTime))).when(service).findRevisionById(mockRecipeId);
+            doReturn(Optional.of(mockRecipe)).when(service).findById(mockRecipeId);
+
+            mockMvc.perform(get("/recipes/{id}", mockRecipeId))
+
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                    .andExpect(header().exists(HttpHeaders.LAST_MODIFIED));
+        }
+
+        @Test
+        @DisplayName("return 304 not modified without loading the recipe if If-None-Match matches")
+        void testGetRecipeByIdNotModified() throws Exception {
+            doReturn(Optional.of(new RecipeRevision(3L, mockCurrentTime))).when(service).findRevisionById(mockRecipeId);
+
+            mockMvc.perform(get("/recipes/{id}", mockRecipeId)
+                            .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                    .andExpect(content().string(""));
+
+            verify(service, never()).findById(any());
+        }
+
         @Test
         @DisplayName("return 404 error if the recipe is not found")
         void testGetRecipeByIdNotFound() throws Exception {
@@ -497,6 +553,33 @@ public class RecipeControllerTest  {
         List<Recipe> mockRecipes = List.of(mockRecipe1,mockRecipe2);
 
 
+        @Test
+        @DisplayName("return 200 ok, the recipes and their facets if facets are asked for")
+        void testGetRecipesFacets() throws Exception {
+            RecipeFacets mockFacets = new RecipeFacets();
+            mockFacets.setIngredients(List.of(new RecipeFacets.IngredientCount(mockIngredientName1, 1)));
+            doReturn(mockRecipes).when(service).search(any());
+            doReturn(mockFacets).when(service).facets(any());
+
+            mockMvc.perform(get("/recipes").param("facets", "ingredients"))
+
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.recipes", hasSize(2)))
+                    .andExpect(jsonPath("$.facets.ingredients[0].ingredientName", is(mockIngredientName1)))
+                    .andExpect(jsonPath("$.facets.ingredients[0].recipeCount", is(1)))
+                    .andExpect(jsonPath("$.facets.isVegetarian").doesNotExist());
+        }
+
+        @Test
+        @DisplayName("return 400 error if a facet is unknown")
+        void testGetRecipesUnknownFacet() throws Exception {
+            mockMvc.perform(get("/recipes").param("facets", "instructions"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.messages[0]", is("facets : must be isVegetarian, numOfServings or ingredients")));
+
+            verify(service, never()).facets(any());
+        }
+
         @Test
         @DisplayName("return 200 ok and the recipes if there is any recipe")
         void testGetRecipesSuccess() throws Exception {
@@ -685,6 +768,35 @@ public class RecipeControllerTest  {
                     .andExpect(jsonPath("$.description", is("uri=/recipes")));
         }
 
+        @Test
+        @DisplayName("return 200 ok if instructionsMatch is valid")
+        void testSearchRecipeInstructionsMatchValid() throws Exception {
+            doReturn(mockRecipes).when(service).search(any());
+
+            mockMvc.perform(get("/recipes?instructionsContains=test&instructionsMatch=phrase"))
+
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                    .andExpect(jsonPath("$").isArray());
+        }
+
+        @Test
+        @DisplayName("return 400 error if instructionsMatch is not term nor phrase")
+        void testSearchRecipeInstructionsMatchInvalid() throws Exception {
+            doReturn(mockRecipes).when(service).search(any());
+
+            mockMvc.perform(get("/recipes?instructionsContains=test&instructionsMatch=test"))
+
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                    .andExpect(jsonPath("$.statusCode", is(HttpStatus.BAD_REQUEST.value())))
+                    .andExpect(jsonPath("$.timestamp", is(mockCurrentDateTimeString)))
+                    .andExpect(jsonPath("$.messages").isArray())
+                    .andExpect(jsonPath("$.messages",hasSize(1)))
+                    .andExpect(jsonPath("$.messages[0]", is("instructionsMatch : must be term or phrase")))
+                    .andExpect(jsonPath("$.description", is("uri=/recipes")));
+        }
+
         @Test
         @DisplayName("return 200 ok and ignore unexpected query string if unexpected query string is set")
         void testSearchRecipeUnknownQueryString() throws Exception {
@@ -697,6 +809,53 @@ public class RecipeControllerTest  {
                     .andExpect(jsonPath("$").isArray());
         }
 
+        @Test
+        @DisplayName("return 200 ok and a page of recipes if limit is valid")
+        void testSearchRecipeLimitValid() throws Exception {
+            final String mockNextCursor = "next";
+            doReturn(new RecipePage(mockRecipes, mockNextCursor)).when(service).searchPage(any());
+
+            mockMvc.perform(get("/recipes?limit=2"))
+
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                    .andExpect(jsonPath("$.recipes").isArray())
+                    .andExpect(jsonPath("$.recipes", hasSize(2)))
+                    .andExpect(jsonPath("$.recipes[0].id", is(mockRecipeId1.intValue())))
+                    .andExpect(jsonPath("$.recipes[1].id", is(mockRecipeId2.intValue())))
+                    .andExpect(jsonPath("$.nextCursor", is(mockNextCursor)));
+        }
+
+        @Test
+        @DisplayName("return 200 ok and the last page of recipes if after is set")
+        void testSearchRecipeAfterValid() throws Exception {
+            doReturn(new RecipePage(mockRecipes, null)).when(service).searchPage(any());
+
+            mockMvc.perform(get("/recipes?after=test"))
+
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                    .andExpect(jsonPath("$.recipes", hasSize(2)))
+                    .andExpect(jsonPath("$.nextCursor", nullValue()));
+        }
+
+        @Test
+        @DisplayName("return 400 error if limit is not between 1 and 100")
+        void testSearchRecipeLimitInvalid() throws Exception {
+            doReturn(new RecipePage(mockRecipes, null)).when(service).searchPage(any());
+
+            mockMvc.perform(get("/recipes?limit=101"))
+
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                    .andExpect(jsonPath("$.statusCode", is(HttpStatus.BAD_REQUEST.value())))
+                    .andExpect(jsonPath("$.timestamp", is(mockCurrentDateTimeString)))
+                    .andExpect(jsonPath("$.messages").isArray())
+                    .andExpect(jsonPath("$.messages",hasSize(1)))
+                    .andExpect(jsonPath("$.messages[0]", is("limit : range must be between 1 and 100")))
+                    .andExpect(jsonPath("$.description", is("uri=/recipes")));
+        }
+
         @Test
         @DisplayName("return 500 error if retrieval of recipe failed")
         void testGetRecipesFail() throws Exception {
@@ -709,6 +868,205 @@ public class RecipeControllerTest  {
     }
 
 
+    @Nested
+    @DisplayName("POST /recipes:bulk")
+    class TestImportRecipes {
+        final Long mockRecipeId = 1L;
+
+        BulkImportResult mockResult = new BulkImportResult(1, 1, List.of(
+                BulkImportItem.created(0, mockRecipeId),
+                BulkImportItem.failed(1, List.of("recipeName : must not be empty"))));
+
+        @Test
+        @DisplayName("return 200 ok and the import result")
+        void testImportRecipesSuccess() throws Exception {
+            doReturn(mockResult).when(importService).importRecipes(any());
+
+            mockMvc.perform(post("/recipes:bulk")
+                            .contentType(MediaType.APPLICATION_NDJSON_VALUE)
+                            .content("{}\n{}"))
+
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                    .andExpect(jsonPath("$.created", is(1)))
+                    .andExpect(jsonPath("$.failed", is(1)))
+                    .andExpect(jsonPath("$.items", hasSize(2)))
+                    .andExpect(jsonPath("$.items[0].index", is(0)))
+                    .andExpect(jsonPath("$.items[0].id", is(mockRecipeId.intValue())))
+                    .andExpect(jsonPath("$.items[1].index", is(1)))
+                    .andExpect(jsonPath("$.items[1].id", nullValue()))
+                    .andExpect(jsonPath("$.items[1].messages[0]", is("recipeName : must not be empty")));
+        }
+
+        @Test
+        @DisplayName("return 500 error if the import failed")
+        void testImportRecipesFail() throws Exception {
+            doThrow(new RuntimeException()).when(importService).importRecipes(any());
+
+            mockMvc.perform(post("/recipes:bulk")
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content("[]"))
+                    .andExpect(status().isInternalServerError());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /recipes/{id}/similar")
+    class TestGetSimilarRecipes {
+        final Long mockRecipeId = 1L;
+
+        @Test
+        @DisplayName("return 200 ok and the similar recipes")
+        void testGetSimilarRecipesSuccess() throws Exception {
+            Recipe mockRecipe = new Recipe(2L, "test2", true, (short) 2, "test 2 instructions",
+                    List.of(new Ingredient(1L, "egg")), mockCurrentTime);
+            doReturn(true).when(service).existsById(mockRecipeId);
+            doReturn(List.of(new RecipeSimilarity(mockRecipe, 0.5))).when(service).findSimilar(mockRecipeId, 10);
+
+            mockMvc.perform(get("/recipes/{id}/similar", mockRecipeId))
+
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].recipe.id", is(2)))
+                    .andExpect(jsonPath("$[0].similarity", is(0.5)));
+        }
+
+        @Test
+        @DisplayName("return 404 error if the recipe is not found")
+        void testGetSimilarRecipesNotFound() throws Exception {
+            doReturn(false).when(service).existsById(mockRecipeId);
+
+            mockMvc.perform(get("/recipes/{id}/similar", mockRecipeId))
+                    .andExpect(status().isNotFound());
+
+            verify(service, never()).findSimilar(any(), anyInt());
+        }
+
+        @Test
+        @DisplayName("return 400 error if limit is out of range")
+        void testGetSimilarRecipesLimitOutOfRange() throws Exception {
+            mockMvc.perform(get("/recipes/{id}/similar", mockRecipeId).param("limit", "101"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.messages[0]", is("limit : range must be between 1 and 100")));
+
+            verify(service, never()).findSimilar(any(), anyInt());
+        }
+
+        @Test
+        @DisplayName("return 400 error if limit is not a number")
+        void testGetSimilarRecipesLimitNotNumber() throws Exception {
+            mockMvc.perform(get("/recipes/{id}/similar", mockRecipeId).param("limit", "abc"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.messages[0]", is("limit : range must be between 1 and 100")));
+
+            verify(service, never()).findSimilar(any(), anyInt());
+        }
+
+        @Test
+        @DisplayName("return 503 error if the similarity index is turned off")
+        void testGetSimilarRecipesIndexDisabled() throws Exception {
+            doReturn(true).when(service).existsById(mockRecipeId);
+            doThrow(new ServiceUnavailableException("Similar recipes need recipes.similarity-index.enabled=true"))
+                    .when(service).findSimilar(mockRecipeId, 10);
+
+            mockMvc.perform(get("/recipes/{id}/similar", mockRecipeId))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(jsonPath("$.messages[0]", is("Similar recipes need recipes.similarity-index.enabled=true")));
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /recipes:match")
+    class TestMatchRecipes {
+
+        @Test
+        @DisplayName("return 200 ok and the matching recipes with their missing ingredients")
+        void testMatchRecipesSuccess() throws Exception {
+            Recipe mockRecipe = new Recipe(1L, "test1", true, (short) 2, "test 1 instructions",
+                    List.of(new Ingredient(1L, "egg"), new Ingredient(2L, "milk")), mockCurrentTime);
+            doReturn(List.of(new RecipeMatch(mockRecipe, List.of("milk")))).when(service).match(any());
+
+            mockMvc.perform(post("/recipes:match")
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content("{\"ingredients\":[\"egg\"],\"maxMissing\":1}"))
+
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].recipe.id", is(1)))
+                    .andExpect(jsonPath("$[0].recipe.ingredients", hasSize(2)))
+                    .andExpect(jsonPath("$[0].missingIngredients", is(List.of("milk"))));
+        }
+
+        @Test
+        @DisplayName("return 400 error if the pantry is empty")
+        void testMatchRecipesEmptyPantry() throws Exception {
+            mockMvc.perform(post("/recipes:match")
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content("{\"ingredients\":[]}"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.messages[0]", is("ingredients : must not be empty")));
+
+            verify(service, never()).match(any());
+        }
+
+        @Test
+        @DisplayName("return 400 error if maxMissing is out of range")
+        void testMatchRecipesMaxMissingOutOfRange() throws Exception {
+            mockMvc.perform(post("/recipes:match")
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content("{\"ingredients\":[\"egg\"],\"maxMissing\":11}"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.messages[0]", is("maxMissing : range must be between 0 and 10")));
+
+            verify(service, never()).match(any());
+        }
+
+        @Test
+        @DisplayName("return 503 error if the pantry index is turned off")
+        void testMatchRecipesIndexDisabled() throws Exception {
+            doThrow(new ServiceUnavailableException("Pantry match needs recipes.pantry-index.enabled=true"))
+                    .when(service).match(any());
+
+            mockMvc.perform(post("/recipes:match")
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content("{\"ingredients\":[\"egg\"]}"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(jsonPath("$.messages[0]", is("Pantry match needs recipes.pantry-index.enabled=true")));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /recipes:export")
+    class TestExportRecipes {
+        Recipe mockRecipe1 = new Recipe(1L, "test1", true, (short) 2, "test 1 instructions",
+                List.of(new Ingredient(1L, "a")), mockCurrentTime);
+        Recipe mockRecipe2 = new Recipe(2L, "test2", false, (short) 4, "test 2 instructions",
+                List.of(), mockCurrentTime);
+
+        @Test
+        @DisplayName("return 200 ok and one recipe per line")
+        void testExportRecipesSuccess() throws Exception {
+            doAnswer(invocation -> {
+                Consumer<Recipe> action = invocation.getArgument(0);
+                action.accept(mockRecipe1);
+                action.accept(mockRecipe2);
+                return null;
+            }).when(service).exportAll(any());
+
+            mockMvc.perform(get("/recipes:export"))
+
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_NDJSON_VALUE))
+                    .andExpect(content().string(
+                            "{\"id\":1,\"recipeName\":\"test1\",\"isVegetarian\":true,\"numOfServings\":2," +
+                                    "\"instructions\":\"test 1 instructions\",\"ingredients\":[{\"id\":1,\"ingredientName\":\"a\"}]," +
+                                    "\"modifiedTime\":\"" + mockCurrentDateTimeString + "\"}\n" +
+                            "{\"id\":2,\"recipeName\":\"test2\",\"isVegetarian\":false,\"numOfServings\":4," +
+                                    "\"instructions\":\"test 2 instructions\",\"ingredients\":[]," +
+                                    "\"modifiedTime\":\"" + mockCurrentDateTimeString + "\"}\n"));
+        }
+    }
+
     @Nested
     @DisplayName("PATCH /recipes/{id}")
     class TestUpdateRecipe {
@@ -740,7 +1098,7 @@ public class RecipeControllerTest  {
 
 
             doReturn(Optional.of(mockRecipe)).when(service).findById(mockRecipeId);
-            doReturn(mockRecipe).when(service).update(any());
+            doReturn(mockRecipe).when(service).update(any(), any(), any());
 
             mockMvc.perform(patch("/recipes/{id}", mockRecipeId)
                             .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -760,6 +1118,68 @@ public class RecipeControllerTest  {
                     .andExpect(jsonPath("$.modifiedTime", is(mockCurrentDateTimeString)));
         }
 
+        @Test
+        @DisplayName("return 200 ok and the new ETag if If-Match is the current ETag")
+        void testUpdateRecipeIfMatch() throws Exception {
+            Recipe updatedRecipe = new Recipe(mockRecipeId, mockRecipeName, mockIsVegetarian,  mockNumOfServings,
+                    mockInstructions, mockIngredients,  mockCurrentTime);
+            updatedRecipe.setVersion(4L);
+            doReturn(updatedRecipe).when(service).update(eq(mockRecipeId), any(), eq(List.of(3L)));
+
+            mockMvc.perform(patch("/recipes/{id}", mockRecipeId)
+                            .header(HttpHeaders.IF_MATCH, "\"3\"")
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(toJsonString(patchRecipe)))
+
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+        }
+
+        @Test
+        @DisplayName("return 412 error if If-Match is stale")
+        void testUpdateRecipeIfMatchStale() throws Exception {
+            doThrow(new PreconditionFailedException("Recipe with id = 1 does not match If-Match"))
+                    .when(service).update(eq(mockRecipeId), any(), eq(List.of(1L)));
+
+            mockMvc.perform(patch("/recipes/{id}", mockRecipeId)
+                            .header(HttpHeaders.IF_MATCH, "\"1\"")
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(toJsonString(patchRecipe)))
+
+                    .andExpect(status().isPreconditionFailed())
+                    .andExpect(jsonPath("$.statusCode", is(HttpStatus.PRECONDITION_FAILED.value())))
+                    .andExpect(jsonPath("$.messages[0]", is("Recipe with id = 1 does not match If-Match")));
+        }
+
+        @Test
+        @DisplayName("return 409 error if the recipe was changed by a concurrent update without If-Match")
+        void testUpdateRecipeConcurrentUpdate() throws Exception {
+            doThrow(new ObjectOptimisticLockingFailureException(Recipe.class, mockRecipeId)).when(service).update(any(), any(), any());
+
+            mockMvc.perform(patch("/recipes/{id}", mockRecipeId)
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(toJsonString(patchRecipe)))
+
+                    .andExpect(status().isConflict())
+                    .andExpect(jsonPath("$.statusCode", is(HttpStatus.CONFLICT.value())))
+                    .andExpect(jsonPath("$.messages[0]", is("Resource was modified by another request")));
+        }
+
+        @Test
+        @DisplayName("return 412 error if the recipe was changed by a concurrent update with If-Match")
+        void testUpdateRecipeConcurrentUpdateIfMatch() throws Exception {
+            doThrow(new ObjectOptimisticLockingFailureException(Recipe.class, mockRecipeId)).when(service).update(any(), any(), any());
+
+            mockMvc.perform(patch("/recipes/{id}", mockRecipeId)
+                            .header(HttpHeaders.IF_MATCH, "\"3\"")
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(toJsonString(patchRecipe)))
+
+                    .andExpect(status().isPreconditionFailed())
+                    .andExpect(jsonPath("$.statusCode", is(HttpStatus.PRECONDITION_FAILED.value())))
+                    .andExpect(jsonPath("$.messages[0]", is("Resource was modified by another request")));
+        }
+
         @Test
         @DisplayName("return 400 error if the size recipe name is null")
         void testUpdateRecipeNameNull() throws Exception {
@@ -768,7 +1188,7 @@ public class RecipeControllerTest  {
                     mockNumOfServings, mockInstructions, patchIngredients);
 
             doReturn(Optional.empty()).when(service).findById(mockRecipeId);
-            doReturn(mockRecipe).when(service).update(any());
+            doReturn(mockRecipe).when(service).update(any(), any(), any());
 
             mockMvc.perform(patch("/recipes/{id}", mockRecipeId)
                             .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -791,7 +1211,7 @@ public class RecipeControllerTest  {
                     mockNumOfServings, mockInstructions, patchIngredients);
 
             doReturn(Optional.empty()).when(service).findById(mockRecipeId);
-            doReturn(mockRecipe).when(service).update(any());
+            doReturn(mockRecipe).when(service).update(any(), any(), any());
 
             mockMvc.perform(patch("/recipes/{id}", mockRecipeId)
                             .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -815,7 +1235,7 @@ public class RecipeControllerTest  {
                     mockNumOfServings, mockInstructions, patchIngredients);
 
             doReturn(Optional.empty()).when(service).findById(mockRecipeId);
-            doReturn(mockRecipe).when(service).update(any());
+            doReturn(mockRecipe).when(service).update(any(), any(), any());
 
             mockMvc.perform(patch("/recipes/{id}", mockRecipeId)
                             .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -838,7 +1258,7 @@ public class RecipeControllerTest  {
             RecipeRequestBody body = new RecipeRequestBody(mockRecipeName,"test",mockNumOfServings.toString(),mockInstructions);
 
             doReturn(Optional.empty()).when(service).findById(mockRecipeId);
-            doReturn(mockRecipe).when(service).update(any());
+            doReturn(mockRecipe).when(service).update(any(), any(), any());
 
             mockMvc.perform(patch("/recipes/{id}", mockRecipeId)
                             .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -861,7 +1281,7 @@ public class RecipeControllerTest  {
             RecipeRequestBody body = new RecipeRequestBody(mockRecipeName,Boolean.toString(mockIsVegetarian), null, mockInstructions);
 
             doReturn(Optional.empty()).when(service).findById(mockRecipeId);
-            doReturn(mockRecipe).when(service).update(any());
+            doReturn(mockRecipe).when(service).update(any(), any(), any());
 
             mockMvc.perform(patch("/recipes/{id}", mockRecipeId)
                             .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -884,7 +1304,7 @@ public class RecipeControllerTest  {
             RecipeRequestBody body = new RecipeRequestBody(mockRecipeName,Boolean.toString(mockIsVegetarian), "101", mockInstructions);
 
             doReturn(Optional.empty()).when(service).findById(mockRecipeId);
-            doReturn(mockRecipe).when(service).update(any());
+            doReturn(mockRecipe).when(service).update(any(), any(), any());
 
             mockMvc.perform(patch("/recipes/{id}", mockRecipeId)
                             .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -907,7 +1327,7 @@ public class RecipeControllerTest  {
             RecipeRequestBody body = new RecipeRequestBody(mockRecipeName,Boolean.toString(mockIsVegetarian), mockNumOfServings.toString(), null);
 
             doReturn(Optional.empty()).when(service).findById(mockRecipeId);
-            doReturn(mockRecipe).when(service).update(any());
+            doReturn(mockRecipe).when(service).update(any(), any(), any());
 
             mockMvc.perform(patch("/recipes/{id}", mockRecipeId)
                             .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -930,7 +1350,7 @@ public class RecipeControllerTest  {
             RecipeRequestBody body = new RecipeRequestBody(mockRecipeName,Boolean.toString(mockIsVegetarian), mockNumOfServings.toString(), "");
 
             doReturn(Optional.empty()).when(service).findById(mockRecipeId);
-            doReturn(mockRecipe).when(service).update(any());
+            doReturn(mockRecipe).when(service).update(any(), any(), any());
 
             mockMvc.perform(patch("/recipes/{id}", mockRecipeId)
                             .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -953,7 +1373,7 @@ public class RecipeControllerTest  {
             RecipeRequestBody body = new RecipeRequestBody(mockRecipeName,Boolean.toString(mockIsVegetarian), mockNumOfServings.toString(), "*".repeat(2001));
 
             doReturn(Optional.empty()).when(service).findById(mockRecipeId);
-            doReturn(mockRecipe).when(service).update(any());
+            doReturn(mockRecipe).when(service).update(any(), any(), any());
 
             mockMvc.perform(patch("/recipes/{id}", mockRecipeId)
                             .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -972,8 +1392,8 @@ public class RecipeControllerTest  {
         @Test
         @DisplayName("return 404 error if the recipe was not found")
         void testUpdateRecipeNotFound() throws Exception {
-            doReturn(Optional.empty()).when(service).findById(mockRecipeId);
-            doReturn(mockRecipe).when(service).update(any());
+            doThrow(new ResourceNotFoundException("Not found Recipe with id = " + mockRecipeId))
+                    .when(service).update(any(), any(), any());
 
             mockMvc.perform(patch("/recipes/{id}", mockRecipeId)
                             .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -986,7 +1406,7 @@ public class RecipeControllerTest  {
         @DisplayName("return 500 error if the update failed")
         void testRecipeDeleteFailure() throws Exception {
             doReturn(Optional.of(mockRecipe)).when(service).findById(mockRecipeId);
-            doThrow(new RuntimeException()).when(service).update(any());
+            doThrow(new RuntimeException()).when(service).update(any(), any(), any());
 
             mockMvc.perform(patch("/recipes/{id}", mockRecipeId)
                             .contentType(MediaType.APPLICATION_JSON_VALUE)
@@ -1049,5 +1469,56 @@ public class RecipeControllerTest  {
         }
     }
 
+    @Nested
+    @DisplayName("DELETE /recipes")
+    class TestDeleteRecipes {
+
+        @Test
+        @DisplayName("return 200 ok with the number of deleted recipes, ignoring duplicate ids")
+        void testRecipesDeleteSuccess() throws Exception {
+            doReturn(2).when(service).deleteAllById(Set.of(1L, 2L, 3L));
+
+            mockMvc.perform(delete("/recipes").param("ids", "1,2,3,2"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.requested", is(3)))
+                    .andExpect(jsonPath("$.deleted", is(2)));
+
+            verify(service).deleteAllById(Set.of(1L, 2L, 3L));
+        }
+
+        @Test
+        @DisplayName("return 400 error if no ids are given")
+        void testRecipesDeleteWithoutIds() throws Exception {
+            mockMvc.perform(delete("/recipes"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.messages[0]", is("ids : must not be empty")));
+
+            verify(service, never()).deleteAllById(any());
+        }
+
+        @Test
+        @DisplayName("return 400 error if more than 1000 ids are given")
+        void testRecipesDeleteTooManyIds() throws Exception {
+            String ids = LongStream.rangeClosed(1, 1001)
+                    .mapToObj(String::valueOf)
+                    .collect(Collectors.joining(","));
+
+            mockMvc.perform(delete("/recipes").param("ids", ids))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.messages[0]", is("ids : must not contain more than 1000 ids")));
+
+            verify(service, never()).deleteAllById(any());
+        }
+
+        @Test
+        @DisplayName("return 400 error if an id is not a number")
+        void testRecipesDeleteIdNotNumber() throws Exception {
+            mockMvc.perform(delete("/recipes").param("ids", "1,abc"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.messages[0]", is("ids : must be positive whole numbers")));
+
+            verify(service, never()).deleteAllById(any());
+        }
+    }
 
 }
@@ -0,0 +1,113 @@
+package github.ikhvjs.recipes.index;
+
+import github.ikhvjs.recipes.model.Ingredient;
+import github.ikhvjs.recipes.model.IngredientName;
+import github.ikhvjs.recipes.repository.IngredientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class IngredientIndexTest {
+
+    private final IngredientRepository repository = mock(IngredientRepository.class);
+
+    private IngredientIndex index;
+
+    @BeforeEach
+    void setUp() {
+        doReturn(List.of(
+                new Object[]{1L, "a"},
+                new Object[]{1L, "b"},
+                new Object[]{2L, "a"},
+                new Object[]{2L, "c"},
+                new Object[]{3L, "Crème"}))
+                .when(repository).findAllRecipeIdAndIngredientName();
+
+        index = new IngredientIndex(repository, true, 2);
+        index.rebuild();
+    }
+
+    @Nested
+    @DisplayName("Test findRecipeIds")
+    class TestFindRecipeIds {
+        @Test
+        @DisplayName("return the union of the recipes using any of the ingredients")
+        void testFindRecipeIdsUnion() {
+            assertEquals(Optional.of(List.of(1L, 2L)), index.findRecipeIds(List.of("b", "c")));
+        }
+
+        @Test
+        @DisplayName("match ingredient names ignoring case and accents")
+        void testFindRecipeIdsNormalized() {
+            assertEquals(Optional.of(List.of(3L)), index.findRecipeIds(List.of("CREME")));
+        }
+
+        @Test
+        @DisplayName("match ingredient names ignoring surrounding and repeated whitespace like the SQL filter")
+        void testFindRecipeIdsWhitespace() {
+            index.put(4L, List.of(new Ingredient("olive oil")));
+
+            assertEquals(Optional.of(List.of(4L)), index.findRecipeIds(List.of(" Olive  oil ")));
+            assertEquals(Optional.of(List.of(1L)), index.findRecipeIds(List.of("b ")));
+        }
+
+        @Test
+        @DisplayName("return an empty id list if no recipe uses the ingredients")
+        void testFindRecipeIdsNoMatch() {
+            assertEquals(Optional.of(List.of()), index.findRecipeIds(List.of("z")));
+        }
+
+        @Test
+        @DisplayName("return Optional.empty() if more recipes than max-ids match")
+        void testFindRecipeIdsTooMany() {
+            assertEquals(Optional.empty(), index.findRecipeIds(List.of("a", "crème")));
+        }
+
+        @Test
+        @DisplayName("return Optional.empty() if the index is disabled")
+        void testFindRecipeIdsDisabled() {
+            IngredientIndex disabledIndex = new IngredientIndex(repository, false, 2);
+            disabledIndex.rebuild();
+
+            assertEquals(Optional.empty(), disabledIndex.findRecipeIds(List.of("b")));
+            verify(repository, times(1)).findAllRecipeIdAndIngredientName();
+        }
+    }
+
+    @Nested
+    @DisplayName("Test writes")
+    class TestWrites {
+        @Test
+        @DisplayName("index the ingredients of a created recipe")
+        void testPut() {
+            index.put(4L, List.of(new Ingredient("d"), new Ingredient("b")));
+
+            assertEquals(Optional.of(List.of(4L)), index.findRecipeIds(List.of("d")));
+            assertEquals(Optional.of(List.of(1L, 4L)), index.findRecipeIds(List.of("b")));
+        }
+
+        @Test
+        @DisplayName("replace the ingredients of a recipe after an ingredient write")
+        void testReindex() {
+            index.reindex(2L, List.of(new IngredientName("a"), new IngredientName("E")));
+
+            assertEquals(Optional.of(List.of()), index.findRecipeIds(List.of("c")));
+            assertEquals(Optional.of(List.of(2L)), index.findRecipeIds(List.of("e")));
+        }
+
+        @Test
+        @DisplayName("forget all ingredients of a deleted recipe")
+        void testRemoveRecipe() {
+            index.remove(1L);
+
+            assertEquals(Optional.of(List.of(2L)), index.findRecipeIds(List.of("a", "b")));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package github.ikhvjs.recipes.index;
+
+import github.ikhvjs.recipes.model.Ingredient;
+import github.ikhvjs.recipes.model.IngredientName;
+import github.ikhvjs.recipes.repository.IngredientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class IngredientSuggestIndexTest {
+
+    private final IngredientRepository repository = mock(IngredientRepository.class);
+
+    private final RecipeIngredientIds recipeIngredientIds = new RecipeIngredientIds();
+
+    private IngredientSuggestIndex index;
+
+    private RecipeIngredientIndexes indexes;
+
+    @BeforeEach
+    void setUp() {
+        IngredientName garlic = entry(1, "Garlic");
+        IngredientName garamMasala = entry(2, "Garam masala");
+        doReturn(List.of(
+                new Object[]{1L, garlic},
+                new Object[]{1L, garamMasala},
+                new Object[]{2L, garlic},
+                new Object[]{2L, entry(3, "Crème fraîche")},
+                new Object[]{3L, garlic},
+                new Object[]{3L, garamMasala},
+                new Object[]{3L, entry(4, "Ginger")}))
+                .when(repository).findAllRecipeIdAndIngredientNameEntry();
+
+        index = new IngredientSuggestIndex(recipeIngredientIds, true);
+        indexes = indexes(index);
+        indexes.rebuild();
+    }
+
+    @Nested
+    @DisplayName("Test suggest")
+    class TestSuggest {
+        @Test
+        @DisplayName("return the names starting with the prefix used by the most recipes first")
+        void testSuggestRanking() {
+            assertEquals(List.of("Garlic:3", "Garam masala:2", "Ginger:1"), describe(index.suggest("g", 10)));
+            assertEquals(List.of("Garlic:3", "Garam masala:2"), describe(index.suggest("gar", 10)));
+        }
+
+        @Test
+        @DisplayName("match the prefix ignoring case and accents")
+        void testSuggestNormalized() {
+            assertEquals(List.of("Crème fraîche:1"), describe(index.suggest("CRÈME F", 10)));
+        }
+
+        @Test
+        @DisplayName("return at most limit names")
+        void testSuggestLimit() {
+            assertEquals(List.of("Garlic:3"), describe(index.suggest("g", 1)));
+        }
+
+        @Test
+        @DisplayName("return no names if none starts with the prefix")
+        void testSuggestNoMatch() {
+            assertEquals(List.of(), index.suggest("z", 10));
+        }
+
+        @Test
+        @DisplayName("return no names if the index is disabled")
+        void testSuggestDisabled() {
+            IngredientSuggestIndex disabledIndex = new IngredientSuggestIndex(recipeIngredientIds, false);
+            indexes(disabledIndex).rebuild();
+
+            assertEquals(List.of(), disabledIndex.suggest("g", 10));
+            verify(repository, times(1)).findAllRecipeIdAndIngredientNameEntry();
+        }
+    }
+
+    @Nested
+    @DisplayName("Test writes")
+    class TestWrites {
+        @Test
+        @DisplayName("count the ingredients of a created recipe")
+        void testPut() {
+            indexes.put(4L, List.of(ingredient(4, "Ginger"), ingredient(5, "Garden peas")));
+            indexes.put(5L, List.of(ingredient(4, "Ginger")));
+
+            assertEquals(List.of("Garlic:3", "Ginger:3", "Garam masala:2", "Garden peas:1"), describe(index.suggest("g", 10)));
+        }
+
+        @Test
+        @DisplayName("recount the ingredients of a recipe after an ingredient write")
+        void testReindex() {
+            doReturn(List.of(entry(4, "Ginger"))).when(repository).findIngredientNameEntriesByRecipeId(3L);
+
+            indexes.reindex(3L);
+
+            assertEquals(List.of("Garlic:2", "Garam masala:1", "Ginger:1"), describe(index.suggest("g", 10)));
+        }
+
+        @Test
+        @DisplayName("forget names no recipe uses anymore")
+        void testRemove() {
+            indexes.remove(2L);
+
+            assertEquals(List.of(), index.suggest("creme", 10));
+            assertEquals(List.of("Garlic:2"), describe(index.suggest("garl", 10)));
+        }
+    }
+
+    private RecipeIngredientIndexes indexes(IngredientSuggestIndex ingredientSuggestIndex) {
+        return new RecipeIngredientIndexes(repository, recipeIngredientIds, new IngredientIndex(repository, false, 1000),
+                new PantryIndex(recipeIngredientIds, false), new SimilarityIndex(recipeIngredientIds, false, 1000),
+                ingredientSuggestIndex);
+    }
+
+    private static IngredientName entry(int id, String name) {
+        IngredientName entry = new IngredientName(name);
+        ReflectionTestUtils.setField(entry, "id", id);
+        return entry;
+    }
+
+    private static Ingredient ingredient(int id, String name) {
+        Ingredient ingredient = new Ingredient();
+        ingredient.setName(entry(id, name));
+        return ingredient;
+    }
+
+    private static List<String> describe(List<IngredientSuggestIndex.Suggestion> suggestions) {
+        return suggestions.stream()
+                .map(suggestion -> suggestion.getIngredientName() + ":" + suggestion.getRecipeCount())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,130 @@
+package github.ikhvjs.recipes.index;
+
+import github.ikhvjs.recipes.model.Ingredient;
+import github.ikhvjs.recipes.model.IngredientName;
+import github.ikhvjs.recipes.repository.IngredientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PantryIndexTest {
+
+    private final IngredientRepository repository = mock(IngredientRepository.class);
+
+    private final RecipeIngredientIds recipeIngredientIds = new RecipeIngredientIds();
+
+    private PantryIndex index;
+
+    private RecipeIngredientIndexes indexes;
+
+    @BeforeEach
+    void setUp() {
+        doReturn(List.of(
+                new Object[]{1L, entry(1)},
+                new Object[]{1L, entry(2)},
+                new Object[]{2L, entry(1)},
+                new Object[]{2L, entry(3)},
+                new Object[]{2L, entry(4)},
+                new Object[]{3L, entry(1)},
+                new Object[]{4L, entry(5)}))
+                .when(repository).findAllRecipeIdAndIngredientNameEntry();
+
+        index = new PantryIndex(recipeIngredientIds, true);
+        indexes = new RecipeIngredientIndexes(repository, recipeIngredientIds, new IngredientIndex(repository, false, 1000),
+                index, new SimilarityIndex(recipeIngredientIds, false, 1000), new IngredientSuggestIndex(recipeIngredientIds, false));
+        indexes.rebuild();
+    }
+
+    @Nested
+    @DisplayName("Test match")
+    class TestMatch {
+        @Test
+        @DisplayName("rank recipes missing fewer ingredients first, then by id")
+        void testMatchRanking() {
+            assertEquals(List.of("3:0", "1:1", "2:2"), describe(index.match(Set.of(1), 2, 10)));
+        }
+
+        @Test
+        @DisplayName("leave out recipes missing more than maxMissing ingredients")
+        void testMatchMaxMissing() {
+            assertEquals(List.of("1:0", "3:0", "2:1"), describe(index.match(Set.of(1, 2, 3), 1, 10)));
+        }
+
+        @Test
+        @DisplayName("leave out recipes using none of the pantry ingredients")
+        void testMatchNoOverlap() {
+            assertEquals(List.of("3:0", "1:1"), describe(index.match(Set.of(1, 6), 1, 10)));
+        }
+
+        @Test
+        @DisplayName("return at most limit recipes")
+        void testMatchLimit() {
+            assertEquals(List.of("3:0"), describe(index.match(Set.of(1), 2, 1)));
+        }
+
+        @Test
+        @DisplayName("return no recipes if the index is disabled")
+        void testMatchDisabled() {
+            PantryIndex disabledIndex = new PantryIndex(recipeIngredientIds, false);
+
+            assertEquals(List.of(), disabledIndex.match(Set.of(1), 2, 10));
+        }
+    }
+
+    @Nested
+    @DisplayName("Test writes")
+    class TestWrites {
+        @Test
+        @DisplayName("index the ingredients of a created recipe")
+        void testPut() {
+            indexes.put(5L, List.of(ingredient(5), ingredient(6)));
+
+            assertEquals(List.of("4:0", "5:1"), describe(index.match(Set.of(5), 2, 10)));
+        }
+
+        @Test
+        @DisplayName("reload the ingredients of a recipe after an ingredient write")
+        void testReindex() {
+            doReturn(List.of(entry(1))).when(repository).findIngredientNameEntriesByRecipeId(2L);
+
+            indexes.reindex(2L);
+
+            assertEquals(List.of("2:0", "3:0", "1:1"), describe(index.match(Set.of(1), 2, 10)));
+        }
+
+        @Test
+        @DisplayName("forget a deleted recipe")
+        void testRemove() {
+            indexes.remove(3L);
+
+            assertEquals(List.of("1:1", "2:2"), describe(index.match(Set.of(1), 2, 10)));
+        }
+    }
+
+    private static IngredientName entry(int nameId) {
+        IngredientName name = new IngredientName("ingredient " + nameId);
+        ReflectionTestUtils.setField(name, "id", nameId);
+        return name;
+    }
+
+    private static Ingredient ingredient(int nameId) {
+        Ingredient ingredient = new Ingredient();
+        ingredient.setName(entry(nameId));
+        return ingredient;
+    }
+
+    private static List<String> describe(List<PantryIndex.Match> matches) {
+        return matches.stream()
+                .map(match -> match.getRecipeId() + ":" + match.getMissing())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,69 @@
+package github.ikhvjs.recipes.index;
+
+import github.ikhvjs.recipes.model.IngredientName;
+import github.ikhvjs.recipes.repository.IngredientRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class RecipeIngredientIndexesTest {
+
+    private final IngredientRepository repository = mock(IngredientRepository.class);
+
+    private final RecipeIngredientIds recipeIngredientIds = new RecipeIngredientIds();
+
+    @Nested
+    @DisplayName("Test reindex")
+    class TestReindex {
+        @Test
+        @DisplayName("load the ingredients of the recipe once for every index")
+        void testReindexLoadsOnce() {
+            IngredientIndex ingredientIndex = new IngredientIndex(repository, true, 1000);
+            PantryIndex pantryIndex = new PantryIndex(recipeIngredientIds, true);
+            SimilarityIndex similarityIndex = new SimilarityIndex(recipeIngredientIds, true, 1000);
+            IngredientSuggestIndex suggestIndex = new IngredientSuggestIndex(recipeIngredientIds, true);
+            RecipeIngredientIndexes indexes = new RecipeIngredientIndexes(repository, recipeIngredientIds,
+                    ingredientIndex, pantryIndex, similarityIndex, suggestIndex);
+            doReturn(List.of(entry(1, "Garlic"), entry(2, "Ginger"))).when(repository).findIngredientNameEntriesByRecipeId(1L);
+            doReturn(List.of(entry(1, "Garlic"), entry(2, "Ginger"))).when(repository).findIngredientNameEntriesByRecipeId(2L);
+
+            indexes.reindex(1L);
+            indexes.reindex(2L);
+
+            verify(repository, times(1)).findIngredientNameEntriesByRecipeId(1L);
+            assertArrayEquals(new int[]{1, 2}, recipeIngredientIds.get(1L));
+            assertEquals(Optional.of(List.of(1L, 2L)), ingredientIndex.findRecipeIds(List.of("garlic")));
+            assertEquals(2, pantryIndex.match(Set.of(1, 2), 0, 10).size());
+            assertEquals(1, similarityIndex.findSimilar(1L, 10).size());
+            assertEquals(2, suggestIndex.suggest("gi", 10).get(0).getRecipeCount());
+        }
+
+        @Test
+        @DisplayName("read nothing if every index is disabled")
+        void testReindexDisabled() {
+            RecipeIngredientIndexes indexes = new RecipeIngredientIndexes(repository, recipeIngredientIds,
+                    new IngredientIndex(repository, false, 1000), new PantryIndex(recipeIngredientIds, false),
+                    new SimilarityIndex(recipeIngredientIds, false, 1000), new IngredientSuggestIndex(recipeIngredientIds, false));
+
+            indexes.rebuild();
+            indexes.reindex(1L);
+
+            verifyNoInteractions(repository);
+            assertNull(recipeIngredientIds.get(1L));
+        }
+    }
+
+    private static IngredientName entry(int id, String name) {
+        IngredientName entry = new IngredientName(name);
+        ReflectionTestUtils.setField(entry, "id", id);
+        return entry;
+    }
+}
@@ -0,0 +1,117 @@
+package github.ikhvjs.recipes.index;
+
+import github.ikhvjs.recipes.repository.RecipeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class RecipeNameRegistryTest {
+
+    private final RecipeRepository repository = mock(RecipeRepository.class);
+
+    private RecipeNameRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        doReturn(List.of(
+                new Object[]{1L, "test1"},
+                new Object[]{2L, "Crème brûlée"}))
+                .when(repository).findAllIdAndRecipeName();
+
+        registry = new RecipeNameRegistry(repository, true);
+        registry.rebuild();
+    }
+
+    @Nested
+    @DisplayName("Test mightContain")
+    class TestMightContain {
+        @Test
+        @DisplayName("return true for a loaded name ignoring case and accents")
+        void testMightContainLoaded() {
+            assertTrue(registry.mightContain("TEST1"));
+            assertTrue(registry.mightContain("creme brulee"));
+        }
+
+        @Test
+        @DisplayName("return false for an unknown name")
+        void testMightContainUnknown() {
+            assertFalse(registry.mightContain("test2"));
+        }
+
+        @Test
+        @DisplayName("return true for every name if disabled")
+        void testMightContainDisabled() {
+            RecipeNameRegistry disabled = new RecipeNameRegistry(repository, false);
+            disabled.rebuild();
+
+            assertTrue(disabled.mightContain("test2"));
+            assertTrue(disabled.reserve(null, "test1"));
+            verify(repository, times(1)).findAllIdAndRecipeName();
+        }
+    }
+
+    @Nested
+    @DisplayName("Test reserve")
+    class TestReserve {
+        @Test
+        @DisplayName("let only one of two creates claim the same name")
+        void testReserveConcurrentCreates() {
+            assertTrue(registry.reserve(null, "test2"));
+            assertFalse(registry.reserve(null, "Test2"));
+            assertTrue(registry.mightContain("test2"));
+        }
+
+        @Test
+        @DisplayName("return false for a name used by another recipe")
+        void testReserveTaken() {
+            assertFalse(registry.reserve(null, "test1"));
+            assertFalse(registry.reserve(2L, "test1"));
+        }
+
+        @Test
+        @DisplayName("return true for the name the recipe already uses")
+        void testReserveOwnName() {
+            assertTrue(registry.reserve(1L, "test1"));
+        }
+
+        @Test
+        @DisplayName("free the name again when the claim is released")
+        void testReserveReleased() {
+            assertTrue(registry.reserve(null, "test2"));
+            registry.release("test2");
+
+            assertFalse(registry.mightContain("test2"));
+            assertTrue(registry.reserve(null, "test2"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Test put and remove")
+    class TestPutAndRemove {
+        @Test
+        @DisplayName("free the previous name of a renamed recipe")
+        void testPutRename() {
+            assertTrue(registry.reserve(1L, "test3"));
+            registry.put(1L, "test3");
+
+            assertTrue(registry.mightContain("test3"));
+            assertFalse(registry.mightContain("test1"));
+            assertFalse(registry.reserve(2L, "test3"));
+        }
+
+        @Test
+        @DisplayName("free the name of a deleted recipe")
+        void testRemove() {
+            registry.remove(1L);
+
+            assertFalse(registry.mightContain("test1"));
+            assertTrue(registry.reserve(null, "test1"));
+        }
+    }
+}
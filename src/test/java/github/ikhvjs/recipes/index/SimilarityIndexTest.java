@@ -0,0 +1,153 @@
+package github.ikhvjs.recipes.index;
+
+import github.ikhvjs.recipes.model.Ingredient;
+import github.ikhvjs.recipes.model.IngredientName;
+import github.ikhvjs.recipes.repository.IngredientRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class SimilarityIndexTest {
+
+    private final IngredientRepository repository = mock(IngredientRepository.class);
+
+    private final RecipeIngredientIds recipeIngredientIds = new RecipeIngredientIds();
+
+    private SimilarityIndex index;
+
+    private RecipeIngredientIndexes indexes;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> rows = new ArrayList<>();
+        // 1 and 2 share all 20 ingredients, 3 shares 19 of them, 4 none
+        IntStream.rangeClosed(1, 20).forEach(id -> rows.add(new Object[]{1L, entry(id)}));
+        IntStream.rangeClosed(1, 20).forEach(id -> rows.add(new Object[]{2L, entry(id)}));
+        IntStream.rangeClosed(2, 21).forEach(id -> rows.add(new Object[]{3L, entry(id)}));
+        IntStream.rangeClosed(101, 120).forEach(id -> rows.add(new Object[]{4L, entry(id)}));
+        doReturn(rows).when(repository).findAllRecipeIdAndIngredientNameEntry();
+
+        index = new SimilarityIndex(recipeIngredientIds, true, 1000);
+        indexes = indexes(index);
+        indexes.rebuild();
+    }
+
+    @Nested
+    @DisplayName("Test findSimilar")
+    class TestFindSimilar {
+        @Test
+        @DisplayName("rank the other recipes by Jaccard similarity, leaving out dissimilar ones")
+        void testFindSimilarRanking() {
+            assertEquals(List.of("2:1.0", "3:0.9"), describe(index.findSimilar(1L, 10)));
+        }
+
+        @Test
+        @DisplayName("return at most limit recipes")
+        void testFindSimilarLimit() {
+            assertEquals(List.of("2:1.0"), describe(index.findSimilar(1L, 1)));
+        }
+
+        @Test
+        @DisplayName("return no recipes for a recipe without ingredients")
+        void testFindSimilarUnknown() {
+            assertEquals(List.of(), index.findSimilar(5L, 10));
+        }
+
+        @Test
+        @DisplayName("return no recipes if the index is disabled")
+        void testFindSimilarDisabled() {
+            SimilarityIndex disabledIndex = new SimilarityIndex(recipeIngredientIds, false, 1000);
+            indexes(disabledIndex).rebuild();
+
+            assertEquals(List.of(), disabledIndex.findSimilar(1L, 10));
+            verify(repository, times(1)).findAllRecipeIdAndIngredientNameEntry();
+        }
+
+        @Test
+        @DisplayName("read at most maxBucketCandidates recipes from each bucket")
+        void testFindSimilarBucketCap() {
+            SimilarityIndex cappedIndex = new SimilarityIndex(recipeIngredientIds, true, 1);
+            RecipeIngredientIndexes cappedIndexes = indexes(cappedIndex);
+            cappedIndexes.rebuild();
+            // 40 more recipes with the ingredients of 1, all in the same 16 buckets as 1 and 2
+            IntStream.rangeClosed(10, 49).forEach(recipeId -> cappedIndexes.put((long) recipeId,
+                    IntStream.rangeClosed(1, 20).mapToObj(SimilarityIndexTest::ingredient).collect(Collectors.toList())));
+
+            // one recipe read from each of the 16 buckets
+            assertTrue(cappedIndex.findSimilar(1L, 100).size() <= 16);
+        }
+
+        @Test
+        @DisplayName("compute the Jaccard similarity of sorted id arrays")
+        void testJaccard() {
+            assertEquals(0.5, SimilarityIndex.jaccard(new int[]{1, 2, 3}, new int[]{2, 3, 4}));
+            assertEquals(0.0, SimilarityIndex.jaccard(new int[]{1}, new int[]{2}));
+        }
+    }
+
+    @Nested
+    @DisplayName("Test writes")
+    class TestWrites {
+        @Test
+        @DisplayName("index the ingredients of a created recipe")
+        void testPut() {
+            indexes.put(5L, IntStream.rangeClosed(101, 120).mapToObj(SimilarityIndexTest::ingredient).collect(Collectors.toList()));
+
+            assertEquals(List.of("5:1.0"), describe(index.findSimilar(4L, 10)));
+        }
+
+        @Test
+        @DisplayName("reload the ingredients of a recipe after an ingredient write")
+        void testReindex() {
+            doReturn(IntStream.rangeClosed(101, 120).mapToObj(SimilarityIndexTest::entry).collect(Collectors.toList()))
+                    .when(repository).findIngredientNameEntriesByRecipeId(2L);
+
+            indexes.reindex(2L);
+
+            assertEquals(List.of("3:0.9"), describe(index.findSimilar(1L, 10)));
+            assertEquals(List.of("4:1.0"), describe(index.findSimilar(2L, 10)));
+        }
+
+        @Test
+        @DisplayName("forget a deleted recipe")
+        void testRemove() {
+            indexes.remove(2L);
+
+            assertEquals(List.of("3:0.9"), describe(index.findSimilar(1L, 10)));
+            assertEquals(List.of(), index.findSimilar(2L, 10));
+        }
+    }
+
+    private RecipeIngredientIndexes indexes(SimilarityIndex similarityIndex) {
+        return new RecipeIngredientIndexes(repository, recipeIngredientIds, new IngredientIndex(repository, false, 1000),
+                new PantryIndex(recipeIngredientIds, false), similarityIndex, new IngredientSuggestIndex(recipeIngredientIds, false));
+    }
+
+    private static IngredientName entry(int nameId) {
+        IngredientName name = new IngredientName("ingredient " + nameId);
+        ReflectionTestUtils.setField(name, "id", nameId);
+        return name;
+    }
+
+    private static Ingredient ingredient(int nameId) {
+        Ingredient ingredient = new Ingredient();
+        ingredient.setName(entry(nameId));
+        return ingredient;
+    }
+
+    private static List<String> describe(List<SimilarityIndex.Similar> similar) {
+        return similar.stream()
+                .map(match -> match.getRecipeId() + ":" + Math.round(match.getSimilarity() * 10) / 10.0)
+                .collect(Collectors.toList());
+    }
+}
@@ -3,7 +3,11 @@ package github.ikhvjs.recipes.integration;
 import com.github.database.rider.core.api.connection.ConnectionHolder;
 import com.github.database.rider.core.api.dataset.DataSet;
 import com.github.database.rider.junit5.DBUnitExtension;
+import github.ikhvjs.recipes.cache.RecipeResponseCache;
 import github.ikhvjs.recipes.dto.IngredientRequestBody;
+import github.ikhvjs.recipes.index.RecipeIngredientIndexes;
+import github.ikhvjs.recipes.service.IngredientNameService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -11,11 +15,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 
+import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
 
 
@@ -37,10 +43,30 @@ public class IngredientIntegrationTest {
     @Autowired
     private DataSource datasource;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private RecipeResponseCache recipeResponseCache;
+
+    @Autowired
+    private IngredientNameService ingredientNameService;
+
+    @Autowired
+    private RecipeIngredientIndexes recipeIngredientIndexes;
+
     public ConnectionHolder getConnectionHolder() {
         return () -> datasource.getConnection();
     }
 
+    // the datasets are loaded behind Hibernate's back
+    @BeforeEach
+    void evictCaches() {
+        entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class).evictAllRegions();
+        recipeResponseCache.clear();
+        IngredientNameCache.clear(ingredientNameService);
+    }
+
     @Nested
     @DisplayName("GET /recipes/{id}/ingredients")
     @DataSet("recipes.yml")
@@ -95,6 +121,31 @@ public class IngredientIntegrationTest {
         }
     }
 
+    @Nested
+    @DisplayName("GET /ingredients:suggest")
+    @DataSet("recipes.yml")
+    class TestSuggestIngredients {
+        @Test
+        @DisplayName("return 200 ok and the names starting with the prefix, including a created one")
+        void testSuggestIngredients() throws Exception {
+            // built when the context started, before the dataset was loaded
+            recipeIngredientIndexes.rebuild();
+
+            mockMvc.perform(post("/recipes/{id}/ingredients", 2)
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(toJsonString(new IngredientRequestBody("Apple"))))
+                    .andExpect(status().isCreated());
+
+            mockMvc.perform(get("/ingredients:suggest").param("prefix", "A"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(2)))
+                    .andExpect(jsonPath("$[0].ingredientName", is("a")))
+                    .andExpect(jsonPath("$[0].recipeCount", is(5)))
+                    .andExpect(jsonPath("$[1].ingredientName", is("Apple")))
+                    .andExpect(jsonPath("$[1].recipeCount", is(1)));
+        }
+    }
+
     @Nested
     @DisplayName("POST /recipes/{id}/ingredients")
     @DataSet("recipes.yml")
@@ -117,6 +168,22 @@ public class IngredientIntegrationTest {
                     .andExpect(jsonPath("$.ingredientName", is(mockIngredientName)));
         }
 
+        @Test
+        @DisplayName("return the new ingredient with a recipe that was already cached")
+        void testRecipeIngredientCreateEvictsCachedRecipe() throws Exception {
+            mockMvc.perform(get("/recipes/{id}", 1))
+                    .andExpect(jsonPath("$.ingredients", hasSize(2)));
+
+            mockMvc.perform(post("/recipes/{id}/ingredients",1)
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(toJsonString(new IngredientRequestBody("test 123"))))
+                    .andExpect(status().isCreated());
+
+            mockMvc.perform(get("/recipes/{id}", 1))
+                    .andExpect(jsonPath("$.ingredients", hasSize(3)))
+                    .andExpect(jsonPath("$.ingredients[2].ingredientName", is("test 123")));
+        }
+
         @Test
         @DisplayName("return 404 error if the recipe is not found")
         void testRecipeIngredientCreateNotNull() throws Exception {
@@ -153,6 +220,45 @@ public class IngredientIntegrationTest {
                     .andExpect(jsonPath("$.ingredientName", is(mockIngredientName)));
         }
 
+        @Test
+        @DisplayName("return the renamed ingredient with a recipe that was already cached")
+        void testRecipeIngredientUpdateEvictsCachedRecipe() throws Exception {
+            mockMvc.perform(get("/recipes/{id}", 1))
+                    .andExpect(jsonPath("$.ingredients[0].ingredientName", is("a")));
+
+            mockMvc.perform(patch("/ingredients/{id}", 1)
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(toJsonString(new IngredientRequestBody("test 1234"))))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(get("/recipes/{id}", 1))
+                    .andExpect(jsonPath("$.ingredients[0].ingredientName", is("test 1234")));
+        }
+
+        @Test
+        @DisplayName("return 412 error and keep the name for a second update with the same If-Match")
+        void testRecipeIngredientUpdateIfMatch() throws Exception {
+            String eTag = mockMvc.perform(get("/recipes/{id}", 1))
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+            String newETag = mockMvc.perform(patch("/ingredients/{id}", 1)
+                            .header(HttpHeaders.IF_MATCH, eTag)
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(toJsonString(new IngredientRequestBody("test 1234"))))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+            mockMvc.perform(patch("/ingredients/{id}", 1)
+                            .header(HttpHeaders.IF_MATCH, eTag)
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(toJsonString(new IngredientRequestBody("test lost update"))))
+                    .andExpect(status().isPreconditionFailed());
+
+            mockMvc.perform(get("/recipes/{id}", 1))
+                    .andExpect(header().string(HttpHeaders.ETAG, newETag))
+                    .andExpect(jsonPath("$.ingredients[0].ingredientName", is("test 1234")));
+        }
+
         @Test
         @DisplayName("return 404 error if the ingredient is not found")
         void testRecipeIngredientUpdateRecipeNotFound() throws Exception {
@@ -179,6 +285,22 @@ public class IngredientIntegrationTest {
                     .andExpect(status().isOk());
         }
 
+        @Test
+        @DisplayName("return the recipe without the deleted ingredient when it was already cached")
+        void testIngredientDeleteEvictsCachedRecipe() throws Exception {
+            mockMvc.perform(get("/recipes/{id}", 1))
+                    .andExpect(jsonPath("$.ingredients", hasSize(2)));
+
+            mockMvc.perform(delete("/ingredients/{id}", 1))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(get("/recipes/{id}", 1))
+                    .andExpect(jsonPath("$.ingredients", hasSize(1)))
+                    .andExpect(jsonPath("$.ingredients[0].id", is(2)));
+            mockMvc.perform(get("/ingredients/{id}", 1))
+                    .andExpect(status().isNotFound());
+        }
+
         @Test
         @DisplayName("return 404 error if the ingredient is not found")
         void testIngredientDeleteNotFound() throws Exception {
@@ -198,6 +320,19 @@ public class IngredientIntegrationTest {
                     .andExpect(status().isOk());
         }
 
+        @Test
+        @DisplayName("return the recipe without ingredients when it was already cached")
+        void testRecipeIngredientsDeleteEvictsCachedRecipe() throws Exception {
+            mockMvc.perform(get("/recipes/{id}", 1))
+                    .andExpect(jsonPath("$.ingredients", hasSize(2)));
+
+            mockMvc.perform(delete("/recipes/{id}/ingredients", 1))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(get("/recipes/{id}", 1))
+                    .andExpect(jsonPath("$.ingredients", hasSize(0)));
+        }
+
         @Test
         @DisplayName("return 404 error if the recipe is not found")
         void testRecipeIngredientsDeleteRecipeNotFound() throws Exception {
@@ -0,0 +1,18 @@
+package github.ikhvjs.recipes.integration;
+
+import github.ikhvjs.recipes.service.IngredientNameService;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+// the datasets replace ingredient_names behind the service, whose entries never expire in production
+final class IngredientNameCache {
+    private IngredientNameCache() {
+    }
+
+    static void clear(IngredientNameService ingredientNameService) {
+        Object target = AopTestUtils.getUltimateTargetObject(ingredientNameService);
+        ((Map<?, ?>) ReflectionTestUtils.getField(target, "entries")).clear();
+    }
+}
@@ -0,0 +1,93 @@
+package github.ikhvjs.recipes.integration;
+
+import com.github.database.rider.core.api.connection.ConnectionHolder;
+import com.github.database.rider.core.api.dataset.DataSet;
+import com.github.database.rider.junit5.DBUnitExtension;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith({DBUnitExtension.class, SpringExtension.class})
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+public class MetricsIntegrationTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataSource datasource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public ConnectionHolder getConnectionHolder() {
+        return () -> datasource.getConnection();
+    }
+
+    @Nested
+    @DisplayName("GET /actuator/prometheus")
+    @DataSet("recipes.yml")
+    class TestPrometheus {
+
+        @Test
+        @DisplayName("return the latency histograms, the Hibernate statistics and the pool gauges")
+        void testPrometheus() throws Exception {
+            mockMvc.perform(get("/recipes/{id}", 1))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get("/recipes").param("isVegetarian", "true").param("numOfServings", "3"))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(get("/actuator/prometheus"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(containsString("http_server_requests_seconds_bucket{")))
+                    .andExpect(content().string(containsString("uri=\"/recipes/{id}\"")))
+                    .andExpect(content().string(containsString(
+                            "recipes_search_seconds_count{filters=\"isVegetarian,numOfServings\",operation=\"search\",}")))
+                    .andExpect(content().string(containsString("recipes_http_sql_statements_bucket{")))
+                    .andExpect(content().string(containsString("hibernate_query_executions_total")))
+                    .andExpect(content().string(containsString("hibernate_second_level_cache_requests_total")))
+                    .andExpect(content().string(containsString("hikaricp_connections_active")));
+        }
+    }
+
+    @Nested
+    @DisplayName("recipes.http.sql.statements")
+    @DataSet("recipes.yml")
+    class TestSqlStatements {
+
+        @Test
+        @DisplayName("record the SQL statements of each request under its mapping")
+        void testSqlStatementsPerRequest() throws Exception {
+            mockMvc.perform(get("/recipes/{id}/ingredients", 2))
+                    .andExpect(status().isOk());
+
+            DistributionSummary summary = meterRegistry.get("recipes.http.sql.statements")
+                    .tag("method", "GET")
+                    .tag("uri", "/recipes/{id}/ingredients")
+                    .summary();
+            assertEquals(1, summary.count());
+            assertTrue(summary.totalAmount() > 0);
+        }
+    }
+}
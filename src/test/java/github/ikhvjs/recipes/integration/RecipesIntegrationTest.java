@@ -3,7 +3,16 @@ package github.ikhvjs.recipes.integration;
 import com.github.database.rider.core.api.connection.ConnectionHolder;
 import com.github.database.rider.core.api.dataset.DataSet;
 import com.github.database.rider.junit5.DBUnitExtension;
+import github.ikhvjs.recipes.cache.RecipeResponseCache;
+import com.jayway.jsonpath.JsonPath;
 import github.ikhvjs.recipes.dto.RecipeRequestBody;
+import github.ikhvjs.recipes.index.RecipeIngredientIndexes;
+import github.ikhvjs.recipes.model.Ingredient;
+import github.ikhvjs.recipes.model.Recipe;
+import github.ikhvjs.recipes.service.IngredientNameService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -11,18 +20,27 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
 
 import static github.ikhvjs.recipes.controller.JsonConverter.toJsonString;
 import static org.hamcrest.Matchers.*;
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -39,10 +57,33 @@ public class RecipesIntegrationTest {
     @Autowired
     private DataSource datasource;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private RecipeResponseCache recipeResponseCache;
+
+    @Autowired
+    private IngredientNameService ingredientNameService;
+
+    @Autowired
+    private RecipeIngredientIndexes recipeIngredientIndexes;
+
     public ConnectionHolder getConnectionHolder() {
         return () -> datasource.getConnection();
     }
 
+    // the datasets and the JDBC inserts below bypass Hibernate
+    @BeforeEach
+    void evictCaches() {
+        entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class).evictAllRegions();
+        recipeResponseCache.clear();
+        IngredientNameCache.clear(ingredientNameService);
+    }
+
 
     @Nested
     @DisplayName("GET /recipes/{id}")
@@ -75,6 +116,46 @@ public class RecipesIntegrationTest {
                     .andExpect(status().isNotFound());
         }
 
+        @Test
+        @DirtiesContext
+        @DisplayName("return 304 not modified for the current ETag and 200 ok once an ingredient was added")
+        void testGetRecipeByIdConditional() throws Exception {
+            String eTag = mockMvc.perform(get("/recipes/{id}", 1))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+            mockMvc.perform(get("/recipes/{id}", 1).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                    .andExpect(status().isNotModified());
+            mockMvc.perform(get("/recipes/{id}/ingredients", 1).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                    .andExpect(status().isNotModified());
+
+            mockMvc.perform(post("/recipes/{id}/ingredients", 1)
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content("{\"ingredientName\":\"test 123\"}"))
+                    .andExpect(status().isCreated());
+
+            mockMvc.perform(get("/recipes/{id}", 1).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                    .andExpect(jsonPath("$.ingredients", hasSize(3)));
+        }
+
+        @Test
+        @DisplayName("return a repeated lookup from the second-level cache")
+        void testGetRecipeByIdCached() throws Exception {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            mockMvc.perform(get("/recipes/{id}", 1))
+                    .andExpect(status().isOk());
+            statistics.clear();
+
+            mockMvc.perform(get("/recipes/{id}", 1))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.ingredients", hasSize(2)));
+
+            assertEquals(0, statistics.getPrepareStatementCount());
+        }
+
     }
 
     @Nested
@@ -113,6 +194,44 @@ public class RecipesIntegrationTest {
                     .andExpect(jsonPath("$.ingredients", hasSize(0)));
         }
 
+        // drops the id blocks this test took from the pool, other tests expect the next ids of the dataset
+        @Test
+        @DirtiesContext
+        @DisplayName("return 200 ok and insert the recipe and its 30 ingredients in 2 batched statements")
+        void testCreateRecipeBatchedInserts() throws Exception {
+            StringBuilder ingredients = new StringBuilder();
+            for (int i = 0; i < 30; i++) {
+                ingredients.append(i == 0 ? "" : ",").append("{\"ingredientName\":\"ingredient ").append(i).append("\"}");
+            }
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+
+            mockMvc.perform(post("/recipes")
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(batchedRecipe("batched 1", ingredients)))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.ingredients", hasSize(30)));
+
+            // the 30 names are new, so the first recipe also adds them to the dictionary
+            assertEquals(61, statistics.getEntityInsertCount());
+            statistics.clear();
+
+            mockMvc.perform(post("/recipes")
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(batchedRecipe("batched 2", ingredients)))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.ingredients", hasSize(30)));
+
+            // name check, recipe insert, ingredient batch, and at most one id_generator select and update
+            assertEquals(31, statistics.getEntityInsertCount());
+            assertTrue(statistics.getPrepareStatementCount() <= 5);
+        }
+
+        private String batchedRecipe(String recipeName, CharSequence ingredients) {
+            return "{\"recipeName\":\"" + recipeName + "\",\"isVegetarian\":true,\"numOfServings\":2," +
+                    "\"instructions\":\"test\",\"ingredients\":[" + ingredients + "]}";
+        }
+
         @Test
         @DisplayName("return 400 Error if the recipe name is registered.")
         void testCreateRecipeNameUnique() throws Exception {
@@ -144,10 +263,261 @@ public class RecipesIntegrationTest {
 
     }
 
+    @Nested
+    @DisplayName("POST /recipes:bulk")
+    @DataSet("recipes.yml")
+    @DirtiesContext
+    class TestImportRecipes {
+        final String validRecipe = "{\"recipeName\":\"bulk1\",\"isVegetarian\":true,\"numOfServings\":2," +
+                "\"instructions\":\"test\",\"ingredients\":[{\"ingredientName\":\"a\"},{\"ingredientName\":\"b\"}]}";
+        final String duplicateRecipe = "{\"recipeName\":\"test1\",\"isVegetarian\":true,\"numOfServings\":2,\"instructions\":\"test\"}";
+        final String invalidRecipe = "{\"recipeName\":\"bulk2\",\"isVegetarian\":true,\"numOfServings\":0,\"instructions\":\"test\"}";
+        final String otherValidRecipe = "{\"recipeName\":\"bulk3\",\"isVegetarian\":false,\"numOfServings\":4,\"instructions\":\"test\"}";
+
+        @Test
+        @DisplayName("return 200 ok and a result per NDJSON line")
+        void testImportNdjson() throws Exception {
+            String body = String.join("\n", validRecipe, duplicateRecipe, invalidRecipe, otherValidRecipe);
+
+            mockMvc.perform(post("/recipes:bulk")
+                            .contentType(MediaType.APPLICATION_NDJSON_VALUE)
+                            .content(body))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                    .andExpect(jsonPath("$.created", is(2)))
+                    .andExpect(jsonPath("$.failed", is(2)))
+                    .andExpect(jsonPath("$.items", hasSize(4)))
+                    .andExpect(jsonPath("$.items[0].index", is(0)))
+                    .andExpect(jsonPath("$.items[0].id", notNullValue()))
+                    .andExpect(jsonPath("$.items[1].id", nullValue()))
+                    .andExpect(jsonPath("$.items[1].messages[0]", is("recipeName : Recipe Name is already registered")))
+                    .andExpect(jsonPath("$.items[2].id", nullValue()))
+                    .andExpect(jsonPath("$.items[2].messages[0]", is("numOfServings : range must be between 1 and 100")))
+                    .andExpect(jsonPath("$.items[3].id", notNullValue()));
+
+            mockMvc.perform(get("/recipes?includeIngredients=b"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].recipeName", hasItem("bulk1")));
+        }
+
+        @Test
+        @DisplayName("return 200 ok and a result per element of a JSON array")
+        void testImportJsonArray() throws Exception {
+            String body = "[" + String.join(",", validRecipe, validRecipe) + "]";
+
+            mockMvc.perform(post("/recipes:bulk")
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(body))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.created", is(1)))
+                    .andExpect(jsonPath("$.failed", is(1)))
+                    .andExpect(jsonPath("$.items[1].messages[0]", is("recipeName : Recipe Name is already registered")));
+        }
+
+        @Test
+        @DisplayName("return 200 ok and insert the rest of a failed batch one by one")
+        void testImportRetryAfterFailedBatch() throws Exception {
+            // both ingredients resolve to one dictionary entry, only the unique key of ingredients rejects it
+            String failingRecipe = "{\"recipeName\":\"bulk4\",\"isVegetarian\":true,\"numOfServings\":2," +
+                    "\"instructions\":\"test\",\"ingredients\":[{\"ingredientName\":\"a\"},{\"ingredientName\":\"A\"}]}";
+            String body = String.join("\n", validRecipe, failingRecipe, otherValidRecipe);
+
+            MvcResult result = mockMvc.perform(post("/recipes:bulk")
+                            .contentType(MediaType.APPLICATION_NDJSON_VALUE)
+                            .content(body))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.created", is(2)))
+                    .andExpect(jsonPath("$.failed", is(1)))
+                    .andExpect(jsonPath("$.items[0].id", notNullValue()))
+                    .andExpect(jsonPath("$.items[1].id", nullValue()))
+                    .andExpect(jsonPath("$.items[2].id", notNullValue()))
+                    .andReturn();
+
+            Integer id = JsonPath.read(result.getResponse().getContentAsString(), "$.items[0].id");
+            mockMvc.perform(get("/recipes/{id}", id))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.recipeName", is("bulk1")))
+                    .andExpect(jsonPath("$.ingredients[*].ingredientName", contains("a", "b")));
+            assertEquals(0, jdbcTemplate.queryForObject(
+                    "select count(*) from recipes where recipe_name = 'bulk4'", Integer.class));
+        }
+
+        @Test
+        @DisplayName("return 200 ok and keep the recipes before malformed JSON")
+        void testImportMalformedJson() throws Exception {
+            String body = validRecipe + "\n{\"recipeName\":";
+
+            mockMvc.perform(post("/recipes:bulk")
+                            .contentType(MediaType.APPLICATION_NDJSON_VALUE)
+                            .content(body))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.created", is(1)))
+                    .andExpect(jsonPath("$.failed", is(1)))
+                    .andExpect(jsonPath("$.items[1].index", is(1)))
+                    .andExpect(jsonPath("$.items[1].messages[0]", startsWith("Malformed JSON")));
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /recipes:match")
+    @DataSet("recipes.yml")
+    class TestMatchRecipes {
+
+        @Test
+        @DisplayName("return 200 ok and the recipes missing the fewest ingredients first")
+        void testMatchRecipes() throws Exception {
+            // built when the context started, before the dataset was loaded
+            recipeIngredientIndexes.rebuild();
+
+            mockMvc.perform(post("/recipes:match")
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content("{\"ingredients\":[\"A\",\" d \",\"unknown\"],\"maxMissing\":1,\"limit\":3}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].recipe.id", contains(3, 1, 2)))
+                    .andExpect(jsonPath("$[0].missingIngredients", empty()))
+                    .andExpect(jsonPath("$[1].recipe.ingredients[*].ingredientName", contains("a", "b")))
+                    .andExpect(jsonPath("$[1].missingIngredients", contains("b")))
+                    .andExpect(jsonPath("$[2].missingIngredients", contains("c")));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /recipes/{id}/similar")
+    @DataSet("recipes.yml")
+    class TestGetSimilarRecipes {
+
+        @Test
+        @DisplayName("return 200 ok and a recipe with the same ingredients first")
+        void testGetSimilarRecipes() throws Exception {
+            jdbcTemplate.update("insert into recipes (id, recipe_name, is_vegetarian, num_of_servings, instructions, modified_time) " +
+                    "values (100, 'test1 copy', false, 2, 'aaa', '2022-08-15')");
+            jdbcTemplate.update("insert into ingredients (id, ingredient_name_id, recipe_id) values (100, 1, 100), (101, 2, 100)");
+            // built when the context started, before the dataset was loaded
+            recipeIngredientIndexes.rebuild();
+
+            mockMvc.perform(get("/recipes/{id}/similar", 1).param("limit", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].recipe.id", is(100)))
+                    .andExpect(jsonPath("$[0].recipe.ingredients[*].ingredientName", contains("a", "b")))
+                    .andExpect(jsonPath("$[0].similarity", is(1.0)));
+        }
+
+        @Test
+        @DisplayName("return 404 error if the recipe is not found")
+        void testGetSimilarRecipesNotFound() throws Exception {
+            mockMvc.perform(get("/recipes/{id}/similar", 100))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /recipes:export")
+    @DataSet("recipes.yml")
+    class TestExportRecipes {
+
+        @Test
+        @DisplayName("return 200 ok and one recipe per line from a single statement")
+        void testExportRecipes() throws Exception {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+
+            MvcResult result = mockMvc.perform(get("/recipes:export"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_NDJSON_VALUE))
+                    .andReturn();
+
+            String[] lines = result.getResponse().getContentAsString().split("\n");
+            assertEquals(7, lines.length);
+            assertEquals(1, (Integer) JsonPath.read(lines[0], "$.id"));
+            assertEquals("test1", JsonPath.read(lines[0], "$.recipeName"));
+            assertEquals(List.of("a", "b"), JsonPath.read(lines[0], "$.ingredients[*].ingredientName"));
+            assertEquals(List.of("a", "f", "j"), JsonPath.read(lines[5], "$.ingredients[*].ingredientName"));
+            assertEquals(7, (Integer) JsonPath.read(lines[6], "$.id"));
+            assertEquals(1, statistics.getPrepareStatementCount());
+        }
+    }
+
     @Nested
     @DisplayName("GET /recipes")
     @DataSet("recipes.yml")
     class TestGetRecipes {
+        @Test
+        @DisplayName("return a repeated search from the query cache until a recipe is updated")
+        void testGetRecipesCached() throws Exception {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            mockMvc.perform(get("/recipes?isVegetarian=true"))
+                    .andExpect(jsonPath("$", hasSize(4)));
+            statistics.clear();
+
+            mockMvc.perform(get("/recipes?isVegetarian=true"))
+                    .andExpect(jsonPath("$", hasSize(4)));
+            assertEquals(0, statistics.getPrepareStatementCount());
+
+            mockMvc.perform(patch("/recipes/{id}", 1)
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(toJsonString(new RecipeRequestBody("test1 vegetarian", "true", "2", "aaa"))))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(get("/recipes?isVegetarian=true"))
+                    .andExpect(jsonPath("$", hasSize(5)));
+        }
+
+        @Test
+        @DisplayName("return 200 ok and the facets of the matching recipes in 2 extra grouped statements")
+        void testGetRecipesFacets() throws Exception {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+
+            mockMvc.perform(get("/recipes?isVegetarian=true&facets=isVegetarian,numOfServings,ingredients"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.recipes", hasSize(4)))
+                    .andExpect(jsonPath("$.nextCursor", nullValue()))
+                    .andExpect(jsonPath("$.facets.isVegetarian.true", is(4)))
+                    .andExpect(jsonPath("$.facets.isVegetarian.false", is(0)))
+                    .andExpect(jsonPath("$.facets.numOfServings['1-2']", is(0)))
+                    .andExpect(jsonPath("$.facets.numOfServings['3-4']", is(2)))
+                    .andExpect(jsonPath("$.facets.numOfServings['5-6']", is(2)))
+                    .andExpect(jsonPath("$.facets.ingredients[*].ingredientName", contains("a", "f", "d", "e", "g", "j")))
+                    .andExpect(jsonPath("$.facets.ingredients[0].recipeCount", is(2)));
+
+            // the id and fetch statements of the search, one for isVegetarian and numOfServings, one for ingredients
+            assertEquals(4, statistics.getPrepareStatementCount());
+        }
+
+        @Test
+        @DisplayName("return 200 ok and leave recipes without isVegetarian or numOfServings out of those facets")
+        void testGetRecipesFacetsNull() throws Exception {
+            // nullable in docker/init-db.sql, only the entity validates them
+            jdbcTemplate.execute("alter table recipes alter column is_vegetarian set null");
+            jdbcTemplate.execute("alter table recipes alter column num_of_servings set null");
+            jdbcTemplate.update("insert into recipes (id, recipe_name, is_vegetarian, num_of_servings, instructions, modified_time) " +
+                    "values (100, 'test null', null, null, 'aaa', '2022-08-15')");
+
+            mockMvc.perform(get("/recipes?facets=isVegetarian,numOfServings"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.recipes", hasSize(8)))
+                    .andExpect(jsonPath("$.facets.isVegetarian", aMapWithSize(2)))
+                    .andExpect(jsonPath("$.facets.isVegetarian.true", is(4)))
+                    .andExpect(jsonPath("$.facets.isVegetarian.false", is(3)))
+                    .andExpect(jsonPath("$.facets.numOfServings['1-2']", is(3)))
+                    .andExpect(jsonPath("$.facets.numOfServings['3-4']", is(2)))
+                    .andExpect(jsonPath("$.facets.numOfServings['5-6']", is(2)));
+        }
+
+        @Test
+        @DisplayName("return 200 ok, a page and the facets of all matching recipes")
+        void testGetRecipesPageFacets() throws Exception {
+            mockMvc.perform(get("/recipes?limit=1&facets=isVegetarian"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.recipes", hasSize(1)))
+                    .andExpect(jsonPath("$.nextCursor", notNullValue()))
+                    .andExpect(jsonPath("$.facets.isVegetarian.true", is(4)))
+                    .andExpect(jsonPath("$.facets.isVegetarian.false", is(3)))
+                    .andExpect(jsonPath("$.facets.numOfServings").doesNotExist())
+                    .andExpect(jsonPath("$.facets.ingredients").doesNotExist());
+        }
+
         @Test
         @DisplayName("return 200 ok and 7 recipes if there is no filtering")
         void testGetRecipesNoFilter() throws Exception {
@@ -226,6 +596,133 @@ public class RecipesIntegrationTest {
         }
     }
 
+    @Nested
+    @DisplayName("GET /recipes with instructionsMatch")
+    @DataSet("recipes.yml")
+    class TestGetRecipesInstructionsMatch {
+        // the test schema is created by Hibernate, which knows nothing of the FULLTEXT index of init-db.sql
+        @BeforeEach
+        void createFullTextIndex() {
+            Integer indexes = jdbcTemplate.queryForObject("select count(*) from information_schema.statistics " +
+                    "where table_schema = database() and table_name = 'recipes' and index_name = 'FT_recipes_instructions'",
+                    Integer.class);
+            if (indexes == 0) {
+                jdbcTemplate.execute("alter table recipes add fulltext key FT_recipes_instructions (instructions)");
+            }
+            jdbcTemplate.update("insert into recipes (id, recipe_name, is_vegetarian, num_of_servings, instructions, modified_time) " +
+                    "values (100, 'omelette', true, 1, 'Whisk eggs gently, then fry', '2022-08-15'), " +
+                    "(101, 'scrambled eggs', true, 1, 'Crack eggs then whisk them in the pan', '2022-08-15')");
+        }
+
+        @Test
+        @DisplayName("return 200 ok and only the recipes with the whole word if instructionsMatch is term")
+        void testGetRecipesInstructionsMatchTerm() throws Exception {
+            mockMvc.perform(get("/recipes?instructionsContains=aaa&instructionsMatch=term"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].id", containsInAnyOrder(1, 4)));
+
+            mockMvc.perform(get("/recipes")
+                            .param("instructionsContains", "EGGS whisk")
+                            .param("instructionsMatch", "term"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].id", containsInAnyOrder(100, 101)));
+        }
+
+        @Test
+        @DisplayName("return 200 ok and only the recipes with the words in order if instructionsMatch is phrase")
+        void testGetRecipesInstructionsMatchPhrase() throws Exception {
+            mockMvc.perform(get("/recipes")
+                            .param("instructionsContains", "whisk eggs")
+                            .param("instructionsMatch", "phrase"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].id", contains(100)));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /recipes statement count")
+    @DataSet("recipes.yml")
+    class TestGetRecipesStatementCount {
+        final int numOfRecipes = 500;
+
+        @Test
+        @DisplayName("return 200 ok and 500 recipes with their ingredients in 2 statements")
+        void testGetRecipesStatementCount() throws Exception {
+            List<Object[]> recipes = new ArrayList<>();
+            List<Object[]> ingredients = new ArrayList<>();
+            for (long id = 100; id < 100 + numOfRecipes; id++) {
+                recipes.add(new Object[]{id, "bulk" + id});
+                ingredients.add(new Object[]{id * 2, 100, id});
+                ingredients.add(new Object[]{id * 2 + 1, 101, id});
+            }
+            jdbcTemplate.update("insert into ingredient_names (id, name, normalized_name) values (100, 'x', 'x'), (101, 'y', 'y')");
+            jdbcTemplate.batchUpdate("insert into recipes (id, recipe_name, is_vegetarian, num_of_servings, instructions, modified_time) " +
+                    "values (?, ?, true, 8, 'bulk', '2022-08-15')", recipes);
+            jdbcTemplate.batchUpdate("insert into ingredients (id, ingredient_name_id, recipe_id) values (?, ?, ?)", ingredients);
+
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+
+            mockMvc.perform(get("/recipes?numOfServings=8"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(numOfRecipes)))
+                    .andExpect(jsonPath("$[0].ingredients", hasSize(2)))
+                    .andExpect(jsonPath("$[" + (numOfRecipes - 1) + "].ingredients", hasSize(2)));
+
+            assertEquals(2, statistics.getPrepareStatementCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /recipes with limit")
+    @DataSet("recipes.yml")
+    class TestGetRecipesPage {
+        @Test
+        @DisplayName("return 200 ok and walk through 7 recipes in pages of 3")
+        void testGetRecipesPages() throws Exception {
+            MvcResult firstPage = mockMvc.perform(get("/recipes?limit=3"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                    .andExpect(jsonPath("$.recipes", hasSize(3)))
+                    .andExpect(jsonPath("$.recipes[*].id", contains(1, 2, 3)))
+                    .andExpect(jsonPath("$.nextCursor", notNullValue()))
+                    .andReturn();
+            String cursor = JsonPath.read(firstPage.getResponse().getContentAsString(), "$.nextCursor");
+
+            MvcResult secondPage = mockMvc.perform(get("/recipes?limit=3&after=" + cursor))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.recipes", hasSize(3)))
+                    .andExpect(jsonPath("$.recipes[*].id", contains(4, 5, 6)))
+                    .andExpect(jsonPath("$.nextCursor", notNullValue()))
+                    .andReturn();
+            cursor = JsonPath.read(secondPage.getResponse().getContentAsString(), "$.nextCursor");
+
+            mockMvc.perform(get("/recipes?limit=3&after=" + cursor))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.recipes", hasSize(1)))
+                    .andExpect(jsonPath("$.recipes[*].id", contains(7)))
+                    .andExpect(jsonPath("$.nextCursor", nullValue()));
+        }
+
+        @Test
+        @DisplayName("return 200 ok and apply filters to the page")
+        void testGetRecipesPageWithFilter() throws Exception {
+            mockMvc.perform(get("/recipes?limit=3&isVegetarian=true"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.recipes", hasSize(3)))
+                    .andExpect(jsonPath("$.recipes[*].id", contains(4, 5, 6)))
+                    .andExpect(jsonPath("$.nextCursor", notNullValue()));
+        }
+
+        @Test
+        @DisplayName("return 400 error if the cursor is malformed")
+        void testGetRecipesPageInvalidCursor() throws Exception {
+            mockMvc.perform(get("/recipes?limit=3&after=invalid"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.messages[0]", is("after : invalid cursor")));
+        }
+    }
+
     @Nested
     @DisplayName("PATCH /recipes/{id}")
     @DataSet("recipes.yml")
@@ -260,6 +757,32 @@ public class RecipesIntegrationTest {
                     .andExpect(jsonPath("$.ingredients", hasSize(2)));
         }
 
+        @Test
+        @DisplayName("return 412 error for a second update with the same If-Match")
+        void testUpdateRecipeIfMatch() throws Exception {
+            String eTag = mockMvc.perform(get("/recipes/{id}", 1))
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            RecipeRequestBody patchRecipe = new RecipeRequestBody("test1 update", "true", "2", "aaa");
+
+            String newETag = mockMvc.perform(patch("/recipes/{id}", 1)
+                            .header(HttpHeaders.IF_MATCH, eTag)
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(toJsonString(patchRecipe)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+            mockMvc.perform(patch("/recipes/{id}", 1)
+                            .header(HttpHeaders.IF_MATCH, eTag)
+                            .contentType(MediaType.APPLICATION_JSON_VALUE)
+                            .content(toJsonString(new RecipeRequestBody("test1 lost update", "true", "2", "aaa"))))
+                    .andExpect(status().isPreconditionFailed());
+
+            mockMvc.perform(get("/recipes/{id}", 1))
+                    .andExpect(header().string(HttpHeaders.ETAG, newETag))
+                    .andExpect(jsonPath("$.recipeName", is("test1 update")));
+            assertEquals(1L, jdbcTemplate.queryForObject("select version from recipes where id = 1", Long.class));
+        }
+
         @Test
         @DisplayName("return 404 error if the recipe was not found")
         void testUpdateRecipeNotFound() throws Exception {
@@ -296,6 +819,38 @@ public class RecipesIntegrationTest {
                     .andExpect(status().isOk());
         }
 
+        @Test
+        @DisplayName("return 404 error for a deleted recipe that was already cached")
+        void testRecipeDeleteEvictsCachedRecipe() throws Exception {
+            mockMvc.perform(get("/recipes/{id}", 1))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(delete("/recipes/{id}", 1))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(get("/recipes/{id}", 1))
+                    .andExpect(status().isNotFound());
+            mockMvc.perform(get("/ingredients/{id}", 1))
+                    .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("keep the other recipes in the second-level cache")
+        void testRecipeDeleteKeepsOtherRecipesCached() throws Exception {
+            mockMvc.perform(get("/recipes/{id}", 1))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get("/recipes/{id}", 3))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(delete("/recipes/{id}", 1))
+                    .andExpect(status().isOk());
+
+            javax.persistence.Cache cache = entityManagerFactory.getCache();
+            assertFalse(cache.contains(Recipe.class, 1L));
+            assertTrue(cache.contains(Recipe.class, 3L));
+            assertTrue(cache.contains(Ingredient.class, 5L));
+        }
+
         @Test
         @DisplayName("return 404 error if the recipe was not found")
         void testRecipeDeleteNotFound() throws Exception {
@@ -305,4 +860,43 @@ public class RecipesIntegrationTest {
         }
     }
 
-}
\ No newline at end of file
+    @Nested
+    @DisplayName("DELETE /recipes")
+    @DataSet("recipes.yml")
+    class TestDeleteRecipes {
+        @Test
+        @DisplayName("delete the recipes and their ingredients with one statement each")
+        void testRecipesDeleteSuccess() throws Exception {
+            mockMvc.perform(get("/recipes/{id}", 1))
+                    .andExpect(status().isOk());
+
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+
+            mockMvc.perform(delete("/recipes").param("ids", "1,2,199"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.requested", is(3)))
+                    .andExpect(jsonPath("$.deleted", is(2)));
+
+            assertEquals(2, statistics.getPrepareStatementCount());
+            assertEquals(0, jdbcTemplate.queryForObject(
+                    "select count(*) from ingredients where recipe_id in (1, 2)", Integer.class));
+
+            mockMvc.perform(get("/recipes/{id}", 1))
+                    .andExpect(status().isNotFound());
+            mockMvc.perform(get("/ingredients/{id}", 3))
+                    .andExpect(status().isNotFound());
+            mockMvc.perform(get("/recipes/{id}", 3))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.ingredients", hasSize(2)));
+        }
+
+        @Test
+        @DisplayName("return 400 error if no ids are given")
+        void testRecipesDeleteWithoutIds() throws Exception {
+            mockMvc.perform(delete("/recipes"))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package github.ikhvjs.recipes.integration;
+
+import com.github.database.rider.core.api.connection.ConnectionHolder;
+import com.github.database.rider.core.api.dataset.DataSet;
+import com.github.database.rider.junit5.DBUnitExtension;
+import github.ikhvjs.recipes.slowquery.SlowQueryLog;
+import github.ikhvjs.recipes.service.IngredientNameService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith({DBUnitExtension.class, SpringExtension.class})
+@SpringBootTest(properties = "recipes.slow-query.threshold=0ms")
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+public class SlowQueryIntegrationTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataSource datasource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
+    @Autowired
+    private IngredientNameService ingredientNameService;
+
+    public ConnectionHolder getConnectionHolder() {
+        return () -> datasource.getConnection();
+    }
+
+    @BeforeEach
+    void clear() {
+        entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class).evictAllRegions();
+        slowQueryLog.clear();
+        IngredientNameCache.clear(ingredientNameService);
+    }
+
+    @Nested
+    @DisplayName("GET /actuator/slowqueries")
+    @DataSet("recipes.yml")
+    class TestSlowQueries {
+
+        @Test
+        @DisplayName("return the query string, the statements with their parameters and the plan of a slow search")
+        void testSlowQueries() throws Exception {
+            mockMvc.perform(get("/recipes").param("numOfServings", "3").param("instructionsContains", "bbb"))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(get("/actuator/slowqueries"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(1)))
+                    .andExpect(jsonPath("$[0].operation", is("search")))
+                    .andExpect(jsonPath("$[0].queryString.numOfServings", is("3")))
+                    .andExpect(jsonPath("$[0].queryString.instructionsContains", is("bbb")))
+                    .andExpect(jsonPath("$[0].statements[0].sql", containsString("num_of_servings")))
+                    .andExpect(jsonPath("$[0].statements[0].parameters", hasItem("%bbb%")))
+                    .andExpect(jsonPath("$[0].explain", not(empty())))
+                    .andExpect(jsonPath("$[0].explain[0].error").doesNotExist());
+        }
+
+        @Test
+        @DisplayName("return nothing once cleared")
+        void testClearSlowQueries() throws Exception {
+            mockMvc.perform(get("/recipes").param("isVegetarian", "true"))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(delete("/actuator/slowqueries"))
+                    .andExpect(status().isNoContent());
+
+            mockMvc.perform(get("/actuator/slowqueries"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", empty()));
+        }
+    }
+}
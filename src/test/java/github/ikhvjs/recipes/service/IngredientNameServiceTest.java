@@ -0,0 +1,100 @@
+package github.ikhvjs.recipes.service;
+
+import github.ikhvjs.recipes.model.Ingredient;
+import github.ikhvjs.recipes.model.IngredientName;
+import github.ikhvjs.recipes.repository.IngredientNameRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+public class IngredientNameServiceTest {
+    private IngredientNameRepository repository;
+    private IngredientNameService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IngredientNameRepository.class);
+        doReturn(List.of()).when(repository).findByNormalizedNameIn(anyCollection());
+        doAnswer(invocation -> invocation.getArgument(0)).when(repository).saveAll(any());
+        service = new IngredientNameServiceImpl(repository, mock(PlatformTransactionManager.class));
+    }
+
+    @Nested
+    @DisplayName("Test normalize")
+    class TestNormalize {
+
+        @Test
+        @DisplayName("ignore case, accents and extra whitespace")
+        void testNormalize() {
+            assertEquals("creme fraiche", IngredientName.normalize("  Crème   Fraîche "));
+        }
+    }
+
+    @Nested
+    @DisplayName("Test resolve")
+    class TestResolve {
+
+        @Test
+        @DisplayName("link names differing only in spelling to one entry with the first spelling")
+        void testResolveSameEntry() {
+            Ingredient first = new Ingredient(null, "Tomato");
+            Ingredient second = new Ingredient(null, " tomato ");
+
+            service.resolve(List.of(first, second));
+
+            assertSame(first.getName(), second.getName());
+            assertEquals("Tomato", second.getIngredientName());
+            verify(repository, times(1)).saveAll(any());
+        }
+
+        @Test
+        @DisplayName("take known entries from memory without querying the database")
+        void testResolveFromMemory() {
+            service.resolve(List.of(new Ingredient(null, "tomato")));
+            Ingredient ingredient = new Ingredient(null, "TOMATO");
+
+            service.resolve(List.of(ingredient));
+
+            assertEquals("tomato", ingredient.getIngredientName());
+            verify(repository, times(1)).findByNormalizedNameIn(anyCollection());
+            verify(repository, times(1)).saveAll(any());
+        }
+
+        @Test
+        @DisplayName("leave ingredients that are already linked untouched")
+        void testResolveLinked() {
+            Ingredient ingredient = new Ingredient(null, "tomato");
+            service.resolve(List.of(ingredient));
+            IngredientName name = ingredient.getName();
+            clearInvocations(repository);
+
+            service.resolve(List.of(ingredient));
+
+            assertSame(name, ingredient.getName());
+            verifyNoInteractions(repository);
+        }
+    }
+
+    @Nested
+    @DisplayName("Test findIds")
+    class TestFindIds {
+
+        @Test
+        @DisplayName("leave out names not in the dictionary")
+        void testFindIdsUnknown() {
+            Collection<Integer> ids = service.findIds(List.of("unknown"));
+
+            assertTrue(ids.isEmpty());
+        }
+    }
+}
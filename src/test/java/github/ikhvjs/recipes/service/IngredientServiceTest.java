@@ -1,7 +1,11 @@
 package github.ikhvjs.recipes.service;
 
+import github.ikhvjs.recipes.exception.PreconditionFailedException;
+import github.ikhvjs.recipes.exception.ResourceNotFoundException;
 import github.ikhvjs.recipes.model.Ingredient;
+import github.ikhvjs.recipes.model.Recipe;
 import github.ikhvjs.recipes.repository.IngredientRepository;
+import github.ikhvjs.recipes.repository.RecipeRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -12,12 +16,15 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
@@ -29,6 +36,9 @@ public class IngredientServiceTest {
     @MockBean
     private IngredientRepository repository;
 
+    @MockBean
+    private RecipeRepository recipeRepository;
+
     static String mockCurrentDateTimeString = "2022-08-04T10:11:30";
     static LocalDateTime mockCurrentTime = LocalDateTime.parse(mockCurrentDateTimeString);
 
@@ -128,14 +138,41 @@ public class IngredientServiceTest {
         @Test
         @DisplayName("return updated ingredient")
         void testUpdateSuccess() {
-            Ingredient mockIngredient = new Ingredient(1L, "test ingredient 1");
+            Ingredient mockIngredient = new Ingredient(null, "test ingredient 1");
 
-            doReturn(mockIngredient).when(repository).save(mockIngredient);
+            doReturn(1).when(repository).updateNameById(eq(1L), any());
+            doReturn(1).when(recipeRepository).touchByIngredientIdAndVersionIn(eq(1L), eq(List.of(3L)), any());
 
-            Ingredient returnedIngredient = service.update(mockIngredient);
+            Ingredient returnedIngredient = service.update(1L, mockIngredient, List.of(3L));
 
             assertNotNull(returnedIngredient,"The returned Ingredient should not be null");
-            assertThat(returnedIngredient).usingRecursiveComparison().isEqualTo(mockIngredient);
+            assertEquals(1L, returnedIngredient.getId());
+            assertEquals("test ingredient 1", returnedIngredient.getIngredientName());
+            verify(repository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("throw PreconditionFailedException if the recipe has none of the given versions")
+        void testUpdateVersionsStale() {
+            Ingredient mockIngredient = new Ingredient(null, "test ingredient 1");
+
+            doReturn(1).when(repository).updateNameById(eq(1L), any());
+            doReturn(0).when(recipeRepository).touchByIngredientIdAndVersionIn(eq(1L), eq(List.of(1L)), any());
+
+            PreconditionFailedException thrown = assertThrows(PreconditionFailedException.class,
+                    () -> service.update(1L, mockIngredient, List.of(1L)));
+
+            assertEquals("Ingredient with id = 1 does not match If-Match", thrown.getMessage());
+        }
+
+        @Test
+        @DisplayName("throw ResourceNotFoundException if the ingredient does not exist")
+        void testUpdateNotFound() {
+            doReturn(0).when(repository).updateNameById(eq(1L), any());
+
+            assertThrows(ResourceNotFoundException.class,
+                    () -> service.update(1L, new Ingredient(null, "test ingredient 1"), null));
+            verify(recipeRepository, never()).touchByIngredientId(any(), any());
         }
 
     }
@@ -157,12 +194,36 @@ public class IngredientServiceTest {
     @DisplayName("Test deleteByRecipeId")
     class TestDeleteByRecipeId {
         @Test
-        @DisplayName("execute repository.deleteByRecipeId")
+        @DisplayName("delete the recipe's ingredients one by one and touch the recipe")
         void testDeleteByRecipeIdSuccess() {
             final Long mockRecipeId = 1L;
-            doNothing().when(repository).deleteByRecipeId(mockRecipeId);
+            List<Ingredient> mockIngredients = List.of(
+                    new Ingredient(1L, "test ingredient 1"),
+                    new Ingredient(2L, "test ingredient 2"));
+            Recipe mockRecipe = new Recipe(mockRecipeId, "test recipe 1", true, (short) 1, "test instructions",
+                    new ArrayList<>(mockIngredients), mockCurrentTime);
+            doReturn(Optional.of(mockRecipe)).when(recipeRepository).findById(mockRecipeId);
+
+            service.deleteByRecipeId(mockRecipeId);
+
+            verify(repository).deleteAll(mockIngredients);
+            verify(repository, never()).deleteByRecipeIdIn(any());
+            assertThat(mockRecipe.getIngredients()).isEmpty();
+            assertThat(mockRecipe.getModifiedTime()).isAfter(mockCurrentTime);
+        }
+
+        @Test
+        @DisplayName("do not touch the recipe if it has no ingredients")
+        void testDeleteByRecipeIdNoIngredients() {
+            final Long mockRecipeId = 1L;
+            Recipe mockRecipe = new Recipe(mockRecipeId, "test recipe 1", true, (short) 1, "test instructions",
+                    new ArrayList<>(), mockCurrentTime);
+            doReturn(Optional.of(mockRecipe)).when(recipeRepository).findById(mockRecipeId);
+
             service.deleteByRecipeId(mockRecipeId);
-            verify(repository).deleteByRecipeId(mockRecipeId);
+
+            verify(repository, never()).deleteAll(any());
+            assertThat(mockRecipe.getModifiedTime()).isEqualTo(mockCurrentTime);
         }
     }
 }
@@ -0,0 +1,83 @@
+package github.ikhvjs.recipes.service;
+
+import github.ikhvjs.recipes.controller.QueryString;
+import github.ikhvjs.recipes.exception.InvalidSearchParamsException;
+import github.ikhvjs.recipes.model.Ingredient;
+import github.ikhvjs.recipes.model.Recipe;
+import github.ikhvjs.recipes.service.ReactiveRecipeServiceImpl.RecipeRow;
+import github.ikhvjs.recipes.service.ReactiveRecipeServiceImpl.SqlQuery;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReactiveRecipeServiceImplTest {
+
+    @Nested
+    @DisplayName("Test toSearchQuery")
+    class TestToSearchQuery {
+        @Test
+        @DisplayName("bind every filter in the order of its placeholders")
+        void testToSearchQueryFilters() {
+            QueryString queryString = new QueryString("true", "4", List.of("a", " B "), null, "oven");
+
+            SqlQuery query = ReactiveRecipeServiceImpl.toSearchQuery(queryString);
+
+            assertTrue(query.getSql().contains("and r.is_vegetarian = ? and r.num_of_servings = ? and r.instructions like ? " +
+                    "and exists (select 1 from ingredients s where s.recipe_id = r.id and s.ingredient_name_id in (" +
+                    "select n.id from ingredient_names n where n.normalized_name in (?, ?)))"));
+            assertTrue(query.getSql().endsWith("order by r.id, i.id"));
+            assertEquals(List.of(true, (short) 4, "%oven%", "a", "b"), query.getBindings());
+        }
+
+        @Test
+        @DisplayName("use the full-text index for instructionsMatch")
+        void testToSearchQueryMatch() {
+            QueryString queryString = new QueryString(null, null, null, List.of("c"), "hot oven");
+            queryString.setInstructionsMatch("term");
+
+            SqlQuery query = ReactiveRecipeServiceImpl.toSearchQuery(queryString);
+
+            assertTrue(query.getSql().contains("and match(r.instructions) against (? in boolean mode) > 0 and not exists"));
+            assertEquals(List.of("+hot +oven", "c"), query.getBindings());
+        }
+
+        @Test
+        @DisplayName("throw InvalidSearchParamsException for paging parameters")
+        void testToSearchQueryPaged() {
+            QueryString queryString = new QueryString();
+            queryString.setLimit("10");
+
+            assertThrows(InvalidSearchParamsException.class, () -> ReactiveRecipeServiceImpl.toSearchQuery(queryString));
+        }
+    }
+
+    @Nested
+    @DisplayName("Test toRecipes")
+    class TestToRecipes {
+        @Test
+        @DisplayName("group consecutive rows of a recipe and keep recipes without ingredients")
+        void testToRecipes() {
+            LocalDateTime modifiedTime = LocalDateTime.parse("2022-08-04T10:11:30");
+            Flux<RecipeRow> rows = Flux.just(
+                    new RecipeRow(1L, "test1", true, (short) 2, "test 1", modifiedTime, 1L, "a"),
+                    new RecipeRow(1L, "test1", true, (short) 2, "test 1", modifiedTime, 2L, "b"),
+                    new RecipeRow(2L, "test2", false, (short) 4, "test 2", modifiedTime, null, null),
+                    new RecipeRow(3L, "test3", false, (short) 1, "test 3", modifiedTime, 3L, "c"));
+
+            List<Recipe> recipes = ReactiveRecipeServiceImpl.toRecipes(rows).collectList().block();
+
+            assertEquals(List.of(1L, 2L, 3L), recipes.stream().map(Recipe::getId).collect(Collectors.toList()));
+            assertEquals(List.of("a", "b"), recipes.get(0).getIngredients().stream()
+                    .map(Ingredient::getIngredientName).collect(Collectors.toList()));
+            assertTrue(recipes.get(1).getIngredients().isEmpty());
+            assertEquals(modifiedTime, recipes.get(2).getModifiedTime());
+        }
+    }
+}
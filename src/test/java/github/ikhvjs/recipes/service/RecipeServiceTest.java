@@ -2,17 +2,23 @@ package github.ikhvjs.recipes.service;
 
 
 import github.ikhvjs.recipes.controller.QueryString;
+import github.ikhvjs.recipes.controller.RecipePage;
 import github.ikhvjs.recipes.exception.InvalidSearchParamsException;
+import github.ikhvjs.recipes.exception.PreconditionFailedException;
+import github.ikhvjs.recipes.exception.ResourceNotFoundException;
 import github.ikhvjs.recipes.model.Ingredient;
 import github.ikhvjs.recipes.model.Recipe;
+import github.ikhvjs.recipes.repository.IngredientRepository;
 import github.ikhvjs.recipes.repository.RecipeRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -24,6 +30,7 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
@@ -36,6 +43,9 @@ public class RecipeServiceTest {
     @MockBean
     private RecipeRepository repository;
 
+    @MockBean
+    private IngredientRepository ingredientRepository;
+
     static String mockCurrentDateTimeString = "2022-08-04T10:11:30";
     static LocalDateTime mockCurrentTime = LocalDateTime.parse(mockCurrentDateTimeString);
 
@@ -158,6 +168,86 @@ public class RecipeServiceTest {
 
             assertTrue(thrown.getMessage().contains("Query String must choose either includeIngredients or excludeIngredients"));
         }
+
+        @Test
+        @DisplayName("throw InvalidSearchParamsException if search param contains instructionsMatch without instructionsContains")
+        void testInstructionsMatchWithoutInstructions() {
+            QueryString mockQueryString = new QueryString(mockIsVegetarian, mockNumOfServings, null, null, null);
+            mockQueryString.setInstructionsMatch("term");
+
+            InvalidSearchParamsException thrown = assertThrows(
+                    InvalidSearchParamsException.class,
+                    () -> service.search(mockQueryString),
+                    "Expected service.search() to throw, but it didn't"
+            );
+
+            assertTrue(thrown.getMessage().contains("Query String instructionsMatch requires instructionsContains"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Test searchPage")
+    class TestSearchPage {
+        List<Recipe> mockRecipes = List.of(
+                new Recipe(1L, "test name1", true, (short) 3,
+                        "mockInstructions", null,  mockCurrentTime),
+                new Recipe(2L, "test name2", true,  (short) 4,
+                        "mockInstructions", null,  mockCurrentTime),
+                new Recipe(3L, "test name3", true,  (short) 4,
+                        "mockInstructions", null,  mockCurrentTime));
+
+        @Test
+        @DisplayName("return a page and the cursor of its last recipe if there are more recipes")
+        void testSearchPageHasNext() {
+            QueryString mockQueryString = new QueryString();
+            mockQueryString.setLimit("2");
+            doReturn(mockRecipes).when(repository).findAll((Specification<Recipe>) any(), any(Sort.class), eq(3));
+
+            RecipePage returnedPage = service.searchPage(mockQueryString);
+
+            assertEquals(2, returnedPage.getRecipes().size());
+            assertEquals(new RecipeCursor(mockCurrentTime, 2L).encode(), returnedPage.getNextCursor());
+        }
+
+        @Test
+        @DisplayName("return the last page without a cursor if there are no more recipes")
+        void testSearchPageLast() {
+            QueryString mockQueryString = new QueryString();
+            mockQueryString.setLimit("3");
+            mockQueryString.setAfter(new RecipeCursor(mockCurrentTime, 1L).encode());
+            doReturn(mockRecipes).when(repository).findAll((Specification<Recipe>) any(), any(Sort.class), eq(4));
+
+            RecipePage returnedPage = service.searchPage(mockQueryString);
+
+            assertEquals(3, returnedPage.getRecipes().size());
+            assertNull(returnedPage.getNextCursor());
+        }
+
+        @Test
+        @DisplayName("round the modifiedTime of the cursor to microseconds like the database")
+        void testSearchPageCursorMicros() {
+            LocalDateTime modifiedTime = LocalDateTime.of(2022, 8, 4, 10, 11, 30, 123_456_789);
+
+            RecipeCursor cursor = RecipeCursor.decode(new RecipeCursor(modifiedTime, 1L).encode());
+
+            assertEquals(LocalDateTime.of(2022, 8, 4, 10, 11, 30, 123_457_000), cursor.getModifiedTime());
+            assertEquals(1L, cursor.getId());
+        }
+
+        @Test
+        @DisplayName("throw InvalidSearchParamsException if the cursor is malformed")
+        void testSearchPageInvalidCursor() {
+            QueryString mockQueryString = new QueryString();
+            mockQueryString.setAfter("not a cursor");
+
+            InvalidSearchParamsException thrown = assertThrows(
+                    InvalidSearchParamsException.class,
+                    () -> service.searchPage(mockQueryString),
+                    "Expected service.searchPage() to throw, but it didn't"
+            );
+
+            assertTrue(thrown.getMessage().contains("after : invalid cursor"));
+        }
     }
 
     @Nested
@@ -178,12 +268,50 @@ public class RecipeServiceTest {
         @Test
         @DisplayName("return updated recipe")
         void testUpdateSuccess() {
-            doReturn(mockReturnedRecipe).when(repository).save(mockInputRecipe);
+            doReturn(1).when(repository).updateById(eq(mockRecipeId), eq(mockRecipeName), eq(mockIsVegetarian),
+                    eq(mockNumOfServings), eq(mockInstructions), any());
+            doReturn(Optional.of(mockReturnedRecipe)).when(repository).findById(mockRecipeId);
 
-            Recipe returnedRecipe = service.update(mockInputRecipe);
+            Recipe returnedRecipe = service.update(mockRecipeId, mockInputRecipe, null);
 
             assertNotNull(returnedRecipe,"The returned Recipe should not be null");
             assertThat(returnedRecipe).usingRecursiveComparison().isEqualTo(mockReturnedRecipe);
+            verify(repository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("update only the given versions and return updated recipe")
+        void testUpdateVersionsSuccess() {
+            doReturn(1).when(repository).updateByIdAndVersionIn(eq(mockRecipeId), eq(List.of(3L)), eq(mockRecipeName),
+                    eq(mockIsVegetarian), eq(mockNumOfServings), eq(mockInstructions), any());
+            doReturn(Optional.of(mockReturnedRecipe)).when(repository).findById(mockRecipeId);
+
+            Recipe returnedRecipe = service.update(mockRecipeId, mockInputRecipe, List.of(3L));
+
+            assertThat(returnedRecipe).usingRecursiveComparison().isEqualTo(mockReturnedRecipe);
+            verify(repository, never()).updateById(any(), any(), any(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("throw PreconditionFailedException if no row has the given versions")
+        void testUpdateVersionsStale() {
+            doReturn(0).when(repository).updateByIdAndVersionIn(eq(mockRecipeId), eq(List.of(1L)), any(), any(), any(), any(), any());
+            doReturn(true).when(repository).existsById(mockRecipeId);
+
+            PreconditionFailedException thrown = assertThrows(PreconditionFailedException.class,
+                    () -> service.update(mockRecipeId, mockInputRecipe, List.of(1L)));
+
+            assertEquals("Recipe with id = 1 does not match If-Match", thrown.getMessage());
+            verify(repository, never()).findById(any());
+        }
+
+        @Test
+        @DisplayName("throw ResourceNotFoundException if the recipe does not exist")
+        void testUpdateNotFound() {
+            doReturn(0).when(repository).updateById(any(), any(), any(), any(), any(), any());
+            doReturn(false).when(repository).existsById(mockRecipeId);
+
+            assertThrows(ResourceNotFoundException.class, () -> service.update(mockRecipeId, mockInputRecipe, null));
         }
     }
 
@@ -191,12 +319,32 @@ public class RecipeServiceTest {
     @DisplayName("Test deleteById")
     class TestDeleteById {
         @Test
-        @DisplayName("execute repository.deleteById")
+        @DisplayName("execute repository.deleteById instead of the set-based deletes")
         void testDeleteByIdSuccess() {
            final Long mockRecipeId = 1L;
             doNothing().when(repository).deleteById(mockRecipeId);
             service.deleteById(mockRecipeId);
             verify(repository).deleteById(mockRecipeId);
+            verify(ingredientRepository, never()).deleteByRecipeIdIn(any());
+            verify(repository, never()).deleteByIdIn(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Test deleteAllById")
+    class TestDeleteAllById {
+        @Test
+        @DisplayName("delete ingredients before recipes and return the number of deleted recipes")
+        void testDeleteAllByIdSuccess() {
+            final List<Long> mockRecipeIds = List.of(1L, 2L, 3L);
+            doReturn(2).when(repository).deleteByIdIn(mockRecipeIds);
+
+            int deleted = service.deleteAllById(mockRecipeIds);
+
+            assertEquals(2, deleted);
+            InOrder inOrder = inOrder(ingredientRepository, repository);
+            inOrder.verify(ingredientRepository).deleteByRecipeIdIn(mockRecipeIds);
+            inOrder.verify(repository).deleteByIdIn(mockRecipeIds);
         }
     }
 
@@ -0,0 +1,40 @@
+package github.ikhvjs.recipes.specification;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RecipeSpecificationTest {
+
+    @Nested
+    @DisplayName("Test full-text queries")
+    class TestFullTextQueries {
+        @Test
+        @DisplayName("require every word in term mode")
+        void testTermsQuery() {
+            assertEquals("+boil +pasta", RecipeSpecification.toTermsQuery("boil  pasta"));
+        }
+
+        @Test
+        @DisplayName("quote the words in phrase mode")
+        void testPhraseQuery() {
+            assertEquals("\"boil the pasta\"", RecipeSpecification.toPhraseQuery("boil the pasta"));
+        }
+
+        @Test
+        @DisplayName("drop boolean mode operators from the text")
+        void testOperatorsDropped() {
+            assertEquals("+crème +brûlée +2", RecipeSpecification.toTermsQuery("-crème \"brûlée*\" (>2)"));
+            assertEquals("\"crème brûlée\"", RecipeSpecification.toPhraseQuery("crème\" brûlée"));
+        }
+
+        @Test
+        @DisplayName("return an empty query if the text has no words")
+        void testNoWords() {
+            assertEquals("", RecipeSpecification.toTermsQuery("+-*"));
+            assertEquals("", RecipeSpecification.toPhraseQuery("\"\""));
+        }
+    }
+}